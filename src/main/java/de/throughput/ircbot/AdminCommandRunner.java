@@ -1,32 +1,91 @@
 package de.throughput.ircbot;
 
+import de.throughput.ircbot.api.CaseMapping;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.pircbotx.PircBotX;
 import org.pircbotx.User;
 import org.pircbotx.hooks.ListenerAdapter;
+import org.pircbotx.hooks.events.DisconnectEvent;
+import org.pircbotx.hooks.events.JoinEvent;
+import org.pircbotx.hooks.events.KickEvent;
+import org.pircbotx.hooks.events.MessageEvent;
+import org.pircbotx.hooks.events.NickChangeEvent;
 import org.pircbotx.hooks.events.NoticeEvent;
+import org.pircbotx.hooks.events.PartEvent;
+import org.pircbotx.hooks.events.PrivateMessageEvent;
+import org.pircbotx.hooks.events.QuitEvent;
+import org.pircbotx.hooks.events.ServerResponseEvent;
+import org.pircbotx.hooks.events.UnknownEvent;
 import org.pircbotx.hooks.types.GenericMessageEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Runs commands that need admin access if the calling user is authorized.
+ * <p>
+ * Users are identified by their services account. Accounts are learned without extra round trips where the
+ * server supports it: from the {@code account} tag of the message ({@code account-tag}), from a WHOX query
+ * sent once per joined channel, and kept up to date by {@code account-notify}. Only if the account of an
+ * admin nick is unknown, NickServ is asked with {@code ACC}; commands arriving while the lookup is
+ * running wait for the same answer.
+ * <p>
+ * {@code account-notify} only covers users on a common channel, so accounts are kept only while the user
+ * shares a channel with the bot; accounts of other users expire after a minute.
  */
 @Component
 @RequiredArgsConstructor
-public class AdminCommandRunner extends ListenerAdapter {
+public class AdminCommandRunner extends ListenerAdapter implements SerialListener {
 
-    private static final int AUTH_TIMEOUT_MINUTES = 3;
+    private static final Logger LOG = LoggerFactory.getLogger(AdminCommandRunner.class);
+
+    private static final long UNTRACKED_TIMEOUT_MILLIS = 60_000L;
+    private static final long LOOKUP_TIMEOUT_MILLIS = 60_000L;
     private static final String NICKSERV = "NickServ";
     private static final String LOGGED_IN_ACCLEVEL = "3";
 
-    private final Map<String, LocalDateTime> authedAdmins = new ConcurrentHashMap<>();
-    private final Map<String, QueuedCommand> queuedCommand = new ConcurrentHashMap<>();
+    private static final String CAP_ACCOUNT_NOTIFY = "account-notify";
+    private static final String CAP_ACCOUNT_TAG = "account-tag";
+    private static final String TAG_ACCOUNT = "account";
+
+    private static final int RPL_ISUPPORT = 5;
+    private static final int RPL_WHOSPCRPL = 354;
+    /**
+     * Query type echoed back in WHOX replies, to tell our replies from others.
+     */
+    private static final String WHOX_QUERY_TYPE = "177";
+
+    /**
+     * Accounts by casefolded nick.
+     */
+    private final Map<String, Identity> identities = new ConcurrentHashMap<>();
+    /**
+     * Commands waiting for an ACC lookup, by casefolded nick.
+     */
+    private final Map<String, PendingLookup> pendingLookups = new HashMap<>();
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+    private final AtomicLong maxLookupNanos = new AtomicLong();
+
+    private volatile boolean whoxSupported;
 
     private final IrcBotConfig botConfig;
+    private final PresenceIndex presenceIndex;
 
     /**
      * Run an admin command.
@@ -38,19 +97,77 @@ public class AdminCommandRunner extends ListenerAdapter {
      */
     public void runPrivileged(GenericMessageEvent event, Runnable execution) {
         User user = event.getUser();
-        if (user != null) {
-            if (isBypassAuth(event) || isAuth(user.getNick())) {
+        if (user == null) {
+            return;
+        }
+        String nick = user.getNick();
+        if (isBypassAuth(event)) {
+            execution.run();
+            return;
+        }
+        Optional<String> account = resolveCached(event, nick);
+        if (account != null) {
+            cacheHits.increment();
+            if (account.isPresent() && isAdminAccount(account.get())) {
                 execution.run();
-            } else if (botConfig.getAdmins().contains(user.getNick())) {
-                // not authed; if this is an admin user, store execution and ask NickServ for account info
-                // the response will be processed in onNotice()
-                queuedCommand.put(user.getNick(), new QueuedCommand(event, execution));
-                event.getBot()
-                        .send()
-                        .message(NICKSERV, "ACC " + user.getNick());
             } else {
                 event.respond("not authorized.");
             }
+        } else if (botConfig.getAdmins().contains(nick)) {
+            // not known yet; if this is an admin user, queue the execution and ask NickServ for account info
+            // the response will be processed in onNotice()
+            lookup(event.getBot(), nick, new QueuedCommand(event, execution));
+        } else {
+            event.respond("not authorized.");
+        }
+    }
+
+    /**
+     * Finds the account of the user without asking the server.
+     *
+     * @return the account, empty if the user is known not to be logged in, or {@code null} if unknown
+     */
+    private Optional<String> resolveCached(GenericMessageEvent event, String nick) {
+        if (hasCapability(event.getBot(), CAP_ACCOUNT_TAG)) {
+            Map<String, String> tags = tagsOf(event);
+            if (tags != null) {
+                String account = tags.get(TAG_ACCOUNT);
+                putIdentity(nick, account, hasCapability(event.getBot(), CAP_ACCOUNT_NOTIFY));
+                return Optional.ofNullable(account);
+            }
+        }
+        Identity identity = identities.get(CaseMapping.caseFold(nick));
+        if (identity == null || !identity.isValid(presenceIndex.isOnline(nick), System.currentTimeMillis())) {
+            return null;
+        }
+        return Optional.ofNullable(identity.getAccount());
+    }
+
+    private static Map<String, String> tagsOf(GenericMessageEvent event) {
+        if (event instanceof MessageEvent messageEvent) {
+            return messageEvent.getTags();
+        }
+        if (event instanceof PrivateMessageEvent privateMessageEvent) {
+            return privateMessageEvent.getTags();
+        }
+        return null;
+    }
+
+    private void lookup(PircBotX bot, String nick, QueuedCommand command) {
+        boolean send;
+        synchronized (pendingLookups) {
+            PendingLookup pending = pendingLookups.get(CaseMapping.caseFold(nick));
+            send = pending == null;
+            if (send) {
+                pending = new PendingLookup(System.nanoTime());
+                pendingLookups.put(CaseMapping.caseFold(nick), pending);
+            }
+            if (command != null) {
+                pending.getCommands().add(command);
+            }
+        }
+        if (send) {
+            bot.send().message(NICKSERV, "ACC " + nick);
         }
     }
 
@@ -64,29 +181,195 @@ public class AdminCommandRunner extends ListenerAdapter {
             if (parts.length == 3 && "ACC".equals(parts[1])) {
                 String nick = parts[0];
                 String accessLevel = parts[2];
-                QueuedCommand command = queuedCommand.remove(nick);
-                if (LOGGED_IN_ACCLEVEL.equals(accessLevel) && botConfig.getAdmins().contains(nick)) {
-                    putAuth(nick);
-                    if (command != null) {
-                        command.getExecution().run();
+                PendingLookup pending;
+                synchronized (pendingLookups) {
+                    pending = pendingLookups.remove(CaseMapping.caseFold(nick));
+                }
+                // ACC 3 means logged in to the account owning the nick
+                boolean loggedIn = LOGGED_IN_ACCLEVEL.equals(accessLevel);
+                if (loggedIn) {
+                    putIdentity(nick, nick, false);
+                }
+                if (pending != null) {
+                    recordLatency(nick, pending);
+                    boolean authorized = loggedIn && isAdminAccount(nick);
+                    for (QueuedCommand command : pending.getCommands()) {
+                        if (authorized) {
+                            command.getExecution().run();
+                        } else {
+                            command.getEvent().respond("not authorized.");
+                        }
                     }
-                } else {
-                    command.getEvent().respond("not authorized.");
                 }
             }
         }
     }
 
+    @Override
+    public void onServerResponse(ServerResponseEvent event) throws Exception {
+        List<String> response = event.getParsedResponse();
+        if (event.getCode() == RPL_ISUPPORT) {
+            if (response.stream().anyMatch("WHOX"::equalsIgnoreCase)) {
+                whoxSupported = true;
+            }
+        } else if (event.getCode() == RPL_WHOSPCRPL && response.size() >= 4
+                && WHOX_QUERY_TYPE.equals(response.get(1))) {
+            // e.g. "ircbot 177 db db", account is "0" if not logged in
+            String account = response.get(3);
+            putIdentity(response.get(2), "0".equals(account) ? null : account,
+                    hasCapability(event.getBot(), CAP_ACCOUNT_NOTIFY));
+        }
+    }
+
+    @Override
+    public void onUnknown(UnknownEvent event) throws Exception {
+        // account-notify, e.g. ":db!~db@host ACCOUNT db", account is "*" on logout
+        String line = event.getLine();
+        if (line.startsWith("@")) {
+            line = line.substring(line.indexOf(' ') + 1);
+        }
+        String[] parts = line.split(" ", 4);
+        if (parts.length == 3 && parts[0].startsWith(":") && "ACCOUNT".equals(parts[1])) {
+            String nick = parts[0].substring(1).split("!", 2)[0];
+            String account = parts[2];
+            putIdentity(nick, "*".equals(account) ? null : account, true);
+        }
+    }
+
+    @Override
+    public void onJoin(JoinEvent event) throws Exception {
+        PircBotX bot = event.getBot();
+        String nick = event.getUserHostmask().getNick();
+        if (nick.equals(bot.getNick())) {
+            if (whoxSupported) {
+                // learn the accounts of everyone on the channel with one query
+                bot.sendRaw().rawLine("WHO " + event.getChannel().getName() + " %tna," + WHOX_QUERY_TYPE);
+            }
+        } else if (botConfig.getAdmins().contains(nick) && !identities.containsKey(CaseMapping.caseFold(nick))) {
+            // look up admins in advance, so their commands don't have to wait
+            lookup(bot, nick, null);
+        }
+    }
+
+    @Override
+    public void onNickChange(NickChangeEvent event) throws Exception {
+        // the account stays with the user
+        Identity identity = identities.remove(CaseMapping.caseFold(event.getOldNick()));
+        if (identity != null) {
+            identities.put(CaseMapping.caseFold(event.getNewNick()), identity);
+        }
+    }
+
+    @Override
+    public void onQuit(QuitEvent event) throws Exception {
+        identities.remove(CaseMapping.caseFold(event.getUserHostmask().getNick()));
+    }
+
+    @Override
+    public void onPart(PartEvent event) throws Exception {
+        left(event.getBot(), event.getUserHostmask().getNick());
+    }
+
+    @Override
+    public void onKick(KickEvent event) throws Exception {
+        left(event.getBot(), event.getRecipientHostmask().getNick());
+    }
+
+    /**
+     * Forgets accounts which account-notify no longer covers.
+     */
+    private void left(PircBotX bot, String nick) {
+        if (nick.equals(bot.getNick())) {
+            // users who were only on the channel the bot left
+            identities.keySet().removeIf(key -> !presenceIndex.isOnline(key));
+        } else {
+            identities.remove(CaseMapping.caseFold(nick));
+        }
+    }
+
+    @Override
+    public void onDisconnect(DisconnectEvent event) throws Exception {
+        identities.clear();
+        whoxSupported = false;
+    }
+
+    /**
+     * Drops lookups NickServ never answered.
+     */
+    @Scheduled(fixedDelay = 30000)
+    public void expireLookups() {
+        long cutOff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(LOOKUP_TIMEOUT_MILLIS);
+        List<QueuedCommand> expired = new ArrayList<>();
+        synchronized (pendingLookups) {
+            Iterator<PendingLookup> iterator = pendingLookups.values().iterator();
+            while (iterator.hasNext()) {
+                PendingLookup pending = iterator.next();
+                if (pending.getStartNanos() - cutOff < 0) {
+                    expired.addAll(pending.getCommands());
+                    iterator.remove();
+                }
+            }
+        }
+        expired.forEach(command -> command.getEvent().respond("NickServ didn't answer, try again later."));
+    }
+
+    /**
+     * Drops accounts which are no longer valid.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void expireIdentities() {
+        long now = System.currentTimeMillis();
+        identities.entrySet().removeIf(entry -> !entry.getValue().isValid(presenceIndex.isOnline(entry.getKey()), now));
+    }
+
     /**
-     * Tell if the given nick is considered an authorized admin.
+     * @return number of privileged commands authorized or rejected without asking NickServ
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return number of answered NickServ lookups
+     */
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return average time until NickServ answered a lookup, in milliseconds
+     */
+    public double getAverageLookupMillis() {
+        long count = lookups.sum();
+        return count == 0 ? 0 : lookupNanos.sum() / 1_000_000.0 / count;
+    }
+
+    /**
+     * @return longest time until NickServ answered a lookup, in milliseconds
+     */
+    public double getMaxLookupMillis() {
+        return maxLookupNanos.get() / 1_000_000.0;
+    }
+
+    private void recordLatency(String nick, PendingLookup pending) {
+        long nanos = System.nanoTime() - pending.getStartNanos();
+        lookups.increment();
+        lookupNanos.add(nanos);
+        maxLookupNanos.accumulateAndGet(nanos, Math::max);
+        LOG.debug("ACC lookup for {} took {} ms", nick, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * Tell if the given account belongs to an admin.
      *
-     * @param nick the nick
+     * @param account the account name
      * @return true if admin
      */
-    private boolean isAuth(String nick) {
-        LocalDateTime lastSeen = this.authedAdmins.get(nick);
-
-        return lastSeen != null && lastSeen.plusMinutes(AUTH_TIMEOUT_MINUTES).isAfter(LocalDateTime.now());
+    private boolean isAdminAccount(String account) {
+        String folded = CaseMapping.caseFold(account);
+        return botConfig.getAdmins()
+                .stream()
+                .anyMatch(admin -> CaseMapping.caseFold(admin).equals(folded));
     }
 
     /**
@@ -98,13 +381,49 @@ public class AdminCommandRunner extends ListenerAdapter {
         return botConfig.isTestMode();
     }
 
+    private static boolean hasCapability(PircBotX bot, String capability) {
+        return bot.getEnabledCapabilities().contains(capability);
+    }
+
     /**
-     * Consider the given nick an authorized admin.
+     * Remember the account of the given nick.
      *
      * @param nick nick
+     * @param account account name, {@code null} if not logged in
+     * @param notified true if the server notifies us of account changes of users on common channels
      */
-    private void putAuth(String nick) {
-        this.authedAdmins.put(nick, LocalDateTime.now());
+    private void putIdentity(String nick, String account, boolean notified) {
+        boolean tracked = notified && presenceIndex.isOnline(nick);
+        this.identities.put(CaseMapping.caseFold(nick), new Identity(account, System.currentTimeMillis(), tracked));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class Identity {
+
+        private final String account;
+        private final long resolvedAt;
+        private final boolean tracked;
+
+        /**
+         * @param sharesChannel true if the user is on a channel with the bot
+         * @param now           current time in milliseconds
+         */
+        boolean isValid(boolean sharesChannel, long now) {
+            if (tracked && sharesChannel) {
+                return true;
+            }
+            // without account-notify, a user who isn't logged in may have logged in since
+            return account != null && resolvedAt + UNTRACKED_TIMEOUT_MILLIS > now;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PendingLookup {
+
+        private final long startNanos;
+        private final List<QueuedCommand> commands = new ArrayList<>();
     }
 
     @Getter
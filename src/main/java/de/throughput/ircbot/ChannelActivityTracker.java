@@ -0,0 +1,145 @@
+package de.throughput.ircbot;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+import de.throughput.ircbot.api.CaseMapping;
+
+/**
+ * Tracks recent activity per channel over a sliding window of ten minutes.
+ * <p>
+ * Messages are counted in one-minute buckets, and the distinct speakers are kept ordered by the time they
+ * last spoke, so both message rate and number of speakers are available without scanning any history.
+ */
+@Component
+public class ChannelActivityTracker {
+
+    private static final long BUCKET_MILLIS = 60_000L;
+    private static final int BUCKETS = 10;
+    private static final long WINDOW_MILLIS = BUCKET_MILLIS * BUCKETS;
+
+    /**
+     * A channel is active if at least this many users spoke within the window.
+     */
+    private static final int ACTIVE_MIN_SPEAKERS = 3;
+
+    /**
+     * Bots don't make a channel active.
+     */
+    private static final Set<String> IGNORED_SPEAKERS = Set.of("gribble");
+
+    private final Map<String, ChannelActivity> activityByChannel = new ConcurrentHashMap<>();
+
+    /**
+     * Records a message.
+     *
+     * @param channel channel name
+     * @param nick    nick of the speaker
+     */
+    public void record(String channel, String nick) {
+        record(channel, nick, System.currentTimeMillis());
+    }
+
+    void record(String channel, String nick, long now) {
+        activityByChannel.computeIfAbsent(channel, k -> new ChannelActivity())
+                .record(CaseMapping.caseFold(nick), now);
+    }
+
+    /**
+     * @param channel channel name
+     * @return number of distinct users who spoke on the channel within the last ten minutes
+     */
+    public int getSpeakerCount(String channel) {
+        return getSpeakerCount(channel, System.currentTimeMillis());
+    }
+
+    int getSpeakerCount(String channel, long now) {
+        ChannelActivity activity = activityByChannel.get(channel);
+        return activity == null ? 0 : activity.speakerCount(now);
+    }
+
+    /**
+     * @param channel channel name
+     * @return average number of messages per minute on the channel within the last ten minutes
+     */
+    public double getMessagesPerMinute(String channel) {
+        return getMessagesPerMinute(channel, System.currentTimeMillis());
+    }
+
+    double getMessagesPerMinute(String channel, long now) {
+        ChannelActivity activity = activityByChannel.get(channel);
+        return activity == null ? 0 : (double) activity.messageCount(now) / BUCKETS;
+    }
+
+    /**
+     * A channel is considered active if three different users have spoken during the last ten minutes.
+     *
+     * @param channel channel name
+     * @return {@code true} if the channel is active
+     */
+    public boolean isActive(String channel) {
+        return getSpeakerCount(channel) >= ACTIVE_MIN_SPEAKERS;
+    }
+
+    /**
+     * @return names of all active channels
+     */
+    public Set<String> getActiveChannels() {
+        return activityByChannel.keySet()
+                .stream()
+                .filter(this::isActive)
+                .collect(Collectors.toSet());
+    }
+
+    private static final class ChannelActivity {
+
+        private final long[] bucketStarts = new long[BUCKETS];
+        private final int[] bucketCounts = new int[BUCKETS];
+        private final LinkedHashMap<String, Long> lastSpokeByNick = new LinkedHashMap<>();
+
+        synchronized void record(String nick, long now) {
+            long bucketStart = now - now % BUCKET_MILLIS;
+            int bucket = (int) ((bucketStart / BUCKET_MILLIS) % BUCKETS);
+            if (bucketStarts[bucket] != bucketStart) {
+                bucketStarts[bucket] = bucketStart;
+                bucketCounts[bucket] = 0;
+            }
+            bucketCounts[bucket]++;
+
+            if (!IGNORED_SPEAKERS.contains(nick)) {
+                // re-insert to move the nick to the end
+                lastSpokeByNick.remove(nick);
+                lastSpokeByNick.put(nick, now);
+            }
+            evict(now);
+        }
+
+        synchronized int speakerCount(long now) {
+            evict(now);
+            return lastSpokeByNick.size();
+        }
+
+        synchronized int messageCount(long now) {
+            long oldestBucketStart = now - now % BUCKET_MILLIS - WINDOW_MILLIS;
+            int count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (bucketStarts[i] > oldestBucketStart) {
+                    count += bucketCounts[i];
+                }
+            }
+            return count;
+        }
+
+        private void evict(long now) {
+            Iterator<Long> iterator = lastSpokeByNick.values().iterator();
+            while (iterator.hasNext() && now - iterator.next() > WINDOW_MILLIS) {
+                iterator.remove();
+            }
+        }
+    }
+}
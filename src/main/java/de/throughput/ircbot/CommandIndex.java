@@ -0,0 +1,99 @@
+package de.throughput.ircbot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.apache.commons.lang3.tuple.Pair;
+
+import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandHandler;
+
+/**
+ * Index of all commands, built once at startup.
+ * <p>
+ * Command names are kept in a sorted array, so all commands starting with a given prefix form a contiguous
+ * range which is found by binary search. Lookups don't allocate, and the possible matches for an ambiguous
+ * abbreviation are already sorted.
+ */
+final class CommandIndex {
+
+    private final String[] names;
+    private final List<Pair<Command, CommandHandler>> entries;
+
+    CommandIndex(Map<String, Pair<Command, CommandHandler>> commandHandlersByCommand) {
+        List<Entry<String, Pair<Command, CommandHandler>>> sorted = new ArrayList<>(commandHandlersByCommand.entrySet());
+        sorted.sort(Entry.comparingByKey());
+
+        names = sorted.stream()
+                .map(Entry::getKey)
+                .toArray(String[]::new);
+        entries = sorted.stream()
+                .map(Entry::getValue)
+                .toList();
+    }
+
+    /**
+     * Resolves a possibly abbreviated command.
+     *
+     * @param command command as typed by the user, without prefix
+     * @return the exactly matching command, or the only command starting with {@code command}; {@code null} if
+     * there is no such command or the abbreviation is ambiguous
+     */
+    Pair<Command, CommandHandler> resolve(String command) {
+        int from = lowerBound(command);
+        if (from == names.length || !names[from].startsWith(command)) {
+            return null;
+        }
+        // an exact match sorts before all longer commands sharing its prefix
+        if (names[from].length() == command.length() || upperBound(command, from) - from == 1) {
+            return entries.get(from);
+        }
+        return null;
+    }
+
+    /**
+     * Gets all commands starting with the given prefix.
+     *
+     * @param prefix command prefix
+     * @return matching commands, sorted by name
+     */
+    List<Pair<Command, CommandHandler>> matches(String prefix) {
+        int from = lowerBound(prefix);
+        return entries.subList(from, upperBound(prefix, from));
+    }
+
+    /**
+     * @return index of the first name which is not less than {@code prefix}
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first name at or after {@code from} which doesn't start with {@code prefix}
+     */
+    private int upperBound(String prefix, int from) {
+        int low = from;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
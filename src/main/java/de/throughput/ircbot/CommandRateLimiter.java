@@ -0,0 +1,164 @@
+package de.throughput.ircbot;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import de.throughput.ircbot.api.CaseMapping;
+import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
+
+/**
+ * Enforces {@link CommandCost}s with token buckets.
+ * <p>
+ * Every user has a budget of {@code ircbot.ratelimit.costBudget} per {@code ircbot.ratelimit.costPeriodMillis},
+ * which is charged with the weight of each command. Commands with channel or global budgets additionally
+ * have one bucket per channel, or one shared bucket. These buckets belong to the {@link CommandCost} instance,
+ * so commands declaring the same cost share one budget. An execution is only allowed if all buckets
+ * involved can pay for it.
+ */
+@Component
+public class CommandRateLimiter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CommandRateLimiter.class);
+
+    private final int costBudget;
+    private final Duration costPeriod;
+    private final IrcBotConfig config;
+
+    private final Map<String, TokenBucket> bucketsByNick = new ConcurrentHashMap<>();
+    private final Map<ChannelCost, TokenBucket> bucketsByChannelAndCost = new ConcurrentHashMap<>();
+    private final Map<CommandCost, TokenBucket> bucketsByCost = new ConcurrentHashMap<>();
+
+    public CommandRateLimiter(
+            @Value("${ircbot.ratelimit.costBudget}") int costBudget,
+            @Value("${ircbot.ratelimit.costPeriodMillis}") long costPeriodMillis,
+            IrcBotConfig config) {
+        this.costBudget = costBudget;
+        this.costPeriod = Duration.ofMillis(costPeriodMillis);
+        this.config = config;
+    }
+
+    /**
+     * Charges the cost of a command execution.
+     *
+     * @param nick    nick of the user
+     * @param channel channel
+     * @param command the command
+     * @return {@code true} if the command may be executed; {@code false} if a budget is exhausted
+     */
+    public boolean tryAcquire(String nick, String channel, Command command) {
+        return tryAcquire(nick, channel, command.getCommand(), command.getCost());
+    }
+
+    /**
+     * Charges the cost of an operation which isn't a command.
+     *
+     * @param nick    nick of the user
+     * @param channel channel
+     * @param name    name of the operation, for logging
+     * @param cost    cost of the operation; operations passing the same instance share its channel and global budgets
+     * @return {@code true} if the operation may be executed; {@code false} if a budget is exhausted
+     */
+    public boolean tryAcquire(String nick, String channel, String name, CommandCost cost) {
+        if (config.isTestMode()) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        int weight = Math.min(cost.getWeight(), costBudget);
+
+        TokenBucket userBucket = bucketsByNick.computeIfAbsent(CaseMapping.caseFold(nick),
+                key -> new TokenBucket(costBudget, costPeriod, now));
+        if (!userBucket.tryTake(weight, now)) {
+            LOG.info("user '{}' exceeded their budget with {}", nick, name);
+            return false;
+        }
+
+        TokenBucket channelBucket = null;
+        if (cost.getChannelBudget() != null) {
+            channelBucket = bucketsByChannelAndCost.computeIfAbsent(new ChannelCost(channel, cost),
+                    key -> new TokenBucket(cost.getChannelBudget().permits(), cost.getChannelBudget().period(), now));
+            if (!channelBucket.tryTake(1, now)) {
+                userBucket.refund(weight);
+                LOG.info("{} exceeded its budget on {}", name, channel);
+                return false;
+            }
+        }
+
+        if (cost.getGlobalBudget() != null) {
+            TokenBucket globalBucket = bucketsByCost.computeIfAbsent(cost,
+                    key -> new TokenBucket(cost.getGlobalBudget().permits(), cost.getGlobalBudget().period(), now));
+            if (!globalBucket.tryTake(1, now)) {
+                userBucket.refund(weight);
+                if (channelBucket != null) {
+                    channelBucket.refund(1);
+                }
+                LOG.info("{} exceeded its global budget", name);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes buckets which have been refilled completely.
+     */
+    @Scheduled(fixedRate = 60000)
+    public void evictFull() {
+        long now = System.currentTimeMillis();
+        bucketsByNick.values().removeIf(bucket -> bucket.isFull(now));
+        bucketsByChannelAndCost.values().removeIf(bucket -> bucket.isFull(now));
+        bucketsByCost.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    /**
+     * Key of a channel budget. {@link CommandCost} has identity equality.
+     */
+    private record ChannelCost(String channel, CommandCost cost) {
+    }
+
+    private static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerMilli;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int permits, Duration period, long now) {
+            this.capacity = permits;
+            this.tokensPerMilli = (double) permits / period.toMillis();
+            this.tokens = permits;
+            this.lastRefill = now;
+        }
+
+        synchronized boolean tryTake(int amount, long now) {
+            refill(now);
+            if (tokens < amount) {
+                return false;
+            }
+            tokens -= amount;
+            return true;
+        }
+
+        synchronized void refund(int amount) {
+            tokens = Math.min(capacity, tokens + amount);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerMilli);
+                lastRefill = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package de.throughput.ircbot;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Outbound HTTP for all handlers.
+ * <p>
+ * One {@link HttpClient} is shared, so connections (HTTP/2 where the server supports it) and TLS sessions
+ * are reused. Requests without a timeout get the default one, and the number of concurrent requests per
+ * host is limited. A request streaming its body into an {@link InputStream} holds its permit until the stream
+ * is closed or read to the end. Requests run on virtual threads; latency and errors are counted per host.
+ * <p>
+ * Hosts come from the URLs users post, so only hosts with requests in flight have permits, and statistics
+ * are kept for at most {@value #MAX_STATS_HOSTS} hosts; requests to further hosts are counted as
+ * {@value #OTHER_HOSTS}.
+ */
+@Component
+public class HttpService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpService.class);
+
+    static final int MAX_STATS_HOSTS = 500;
+    static final String OTHER_HOSTS = "other";
+
+    private final Duration requestTimeout;
+    private final int maxConcurrentPerHost;
+    private final ExecutorService executor;
+    private final HttpClient client;
+
+    private final Map<String, HostPermits> permitsByHost = new ConcurrentHashMap<>();
+    private final Map<String, HostStats> statsByHost = new ConcurrentHashMap<>();
+
+    public HttpService(
+            @Value("${ircbot.http.connectTimeoutMillis}") long connectTimeoutMillis,
+            @Value("${ircbot.http.requestTimeoutMillis}") long requestTimeoutMillis,
+            @Value("${ircbot.http.maxConcurrentPerHost}") int maxConcurrentPerHost) {
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Sends a request asynchronously, like {@link HttpClient#sendAsync(HttpRequest, BodyHandler)}.
+     * <p>
+     * If all permits for the host are taken, the request waits for one.
+     *
+     * @param request     the request
+     * @param bodyHandler the response body handler
+     * @param <T>         the response body type
+     * @return the response
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> bodyHandler) {
+        HttpRequest timedRequest = request.timeout().isPresent()
+                ? request
+                : HttpRequest.newBuilder(request, (name, value) -> true).timeout(requestTimeout).build();
+        String host = String.valueOf(request.uri().getHost());
+        return CompletableFuture.supplyAsync(() -> send(host, timedRequest, bodyHandler), executor);
+    }
+
+    private <T> HttpResponse<T> send(String host, HttpRequest request, BodyHandler<T> bodyHandler) {
+        HostStats stats = stats(host);
+        Runnable release = acquire(host);
+        // a streamed body takes over the permit
+        AtomicReference<PermitInputStream> streamedBody = new AtomicReference<>();
+        BodyHandler<T> permitBodyHandler = responseInfo -> BodySubscribers.mapping(bodyHandler.apply(responseInfo),
+                body -> {
+                    if (body instanceof InputStream in) {
+                        PermitInputStream permitBody = new PermitInputStream(in, release);
+                        streamedBody.set(permitBody);
+                        @SuppressWarnings("unchecked")
+                        T streamed = (T) permitBody;
+                        return streamed;
+                    }
+                    return body;
+                });
+        long start = System.nanoTime();
+        try {
+            HttpResponse<T> response = client.send(request, permitBodyHandler);
+            stats.record(System.nanoTime() - start, response.statusCode() >= 500);
+            if (streamedBody.get() == null) {
+                release.run();
+            }
+            return response;
+        } catch (Exception e) {
+            stats.record(System.nanoTime() - start, true);
+            LOG.debug("request to {} failed: {}", host, e.getMessage());
+            PermitInputStream body = streamedBody.get();
+            if (body != null) {
+                body.closeQuietly();
+            }
+            release.run();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Takes a permit for the host, waiting for one if necessary.
+     *
+     * @return releases the permit; runs only once
+     */
+    private Runnable acquire(String host) {
+        HostPermits permits = permitsByHost.compute(host, (key, hostPermits) -> {
+            HostPermits counted = hostPermits == null ? new HostPermits(maxConcurrentPerHost) : hostPermits;
+            counted.users++;
+            return counted;
+        });
+        try {
+            permits.semaphore.acquire();
+        } catch (InterruptedException e) {
+            leave(host);
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.semaphore.release();
+                leave(host);
+            }
+        };
+    }
+
+    /**
+     * Drops the permits of the host once no request holds or waits for one.
+     */
+    private void leave(String host) {
+        permitsByHost.computeIfPresent(host, (key, hostPermits) -> --hostPermits.users == 0 ? null : hostPermits);
+    }
+
+    private HostStats stats(String host) {
+        HostStats stats = statsByHost.get(host);
+        if (stats != null) {
+            return stats;
+        }
+        return statsByHost.computeIfAbsent(statsByHost.size() < MAX_STATS_HOSTS ? host : OTHER_HOSTS,
+                key -> new HostStats());
+    }
+
+    /**
+     * @return number of hosts with requests holding or waiting for a permit
+     */
+    int getHostsWithPermits() {
+        return permitsByHost.size();
+    }
+
+    /**
+     * @return statistics per host
+     */
+    public Map<String, HostStats> getHostStats() {
+        return Map.copyOf(statsByHost);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        client.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Permits of one host, with the number of requests holding or waiting for one.
+     */
+    private static final class HostPermits {
+
+        private final Semaphore semaphore;
+        private int users;
+
+        HostPermits(int permits) {
+            this.semaphore = new Semaphore(permits);
+        }
+    }
+
+    /**
+     * Response body which releases the permit of its request when it is closed or read to the end.
+     */
+    private static final class PermitInputStream extends FilterInputStream {
+
+        private final Runnable release;
+
+        PermitInputStream(InputStream body, Runnable release) {
+            super(body);
+            this.release = release;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return released(super.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return released(super.read(b, off, len));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release.run();
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                close();
+            } catch (IOException e) {
+                // the permit is released either way
+            }
+        }
+
+        private int released(int read) {
+            if (read < 0) {
+                release.run();
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Request statistics of one host.
+     */
+    public static final class HostStats {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean error) {
+            requests.increment();
+            if (error) {
+                errors.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * @return number of requests
+         */
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        /**
+         * @return number of requests which failed or got a server error
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * @return average request duration in milliseconds
+         */
+        public double getAverageMillis() {
+            long count = requests.sum();
+            return count == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / count;
+        }
+
+        /**
+         * @return longest request duration in milliseconds
+         */
+        public long getMaxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+    }
+}
@@ -1,10 +1,8 @@
 package de.throughput.ircbot;
 
-import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -18,6 +16,7 @@ import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import de.throughput.ircbot.api.MessageHandler;
+import de.throughput.ircbot.api.ParsedMessage;
 
 /**
  * Listens to the conversation, executes commands and feeds the message handlers.
@@ -28,9 +27,11 @@ public class IrcBotConversationListener extends ListenerAdapter {
     private static final Set<String> COMMAND_PREFIXES = Set.of("!", "*");
 
     private final IrcBotConfig botConfig;
-    private final Map<String, Pair<Command, CommandHandler>> commandHandlersByCommand;
-    private final List<MessageHandler> messageHandlers;
+    private final CommandIndex commandIndex;
+    private final MessageHandlerIndex messageHandlerIndex;
     private final UserRateLimiter rateLimiter;
+    private final CommandRateLimiter commandRateLimiter;
+    private final ChannelActivityTracker activityTracker;
 
     private final AdminCommandRunner adminCommandRunner;
 
@@ -38,16 +39,21 @@ public class IrcBotConversationListener extends ListenerAdapter {
     public IrcBotConversationListener(
             IrcBotConfig botConfig,
             UserRateLimiter rateLimiter,
+            CommandRateLimiter commandRateLimiter,
+            ChannelActivityTracker activityTracker,
             AdminCommandRunner adminCommandRunner,
             List<CommandHandler> commandHandlers,
             List<MessageHandler> messageHandlers) {
         this.botConfig = botConfig;
         this.rateLimiter = rateLimiter;
+        this.commandRateLimiter = commandRateLimiter;
+        this.activityTracker = activityTracker;
         this.adminCommandRunner = adminCommandRunner;
-        commandHandlersByCommand = new LinkedHashMap<>();
+        Map<String, Pair<Command, CommandHandler>> commandHandlersByCommand = new LinkedHashMap<>();
         commandHandlers.forEach(handler -> handler.getCommands()
                 .forEach(command -> commandHandlersByCommand.put(command.getCommand(), Pair.of(command, handler))));
-        this.messageHandlers = messageHandlers;
+        this.commandIndex = new CommandIndex(commandHandlersByCommand);
+        this.messageHandlerIndex = new MessageHandlerIndex(messageHandlers, botConfig.getTalkChannels());
     }
 
     @Override
@@ -60,6 +66,7 @@ public class IrcBotConversationListener extends ListenerAdapter {
         if (nick.equals("DrGolang")) {
             return; // don't talk to DrGolang
         }
+        activityTracker.record(event.getChannel().getName(), nick);
         if (rateLimiter.ignore(nick)) {
             return;
         }
@@ -67,7 +74,8 @@ public class IrcBotConversationListener extends ListenerAdapter {
         boolean rateLimitExceeded = rateLimiter.limit(nick);
 
         String channel = event.getChannel().getName();
-        String message = event.getMessage().trim();
+        ParsedMessage parsedMessage = ParsedMessage.of(event);
+        String message = parsedMessage.getTrimmed();
         Optional<String> commandPrefix = commandPrefix(message);
         if (commandPrefix.isPresent() && message.length() > 1 && isTalkChannel(channel)) {
 
@@ -81,33 +89,28 @@ public class IrcBotConversationListener extends ListenerAdapter {
             String command = parts[0];
             String argLine = parts.length > 1 ? parts[1] : null;
 
-            List<Pair<Command, CommandHandler>> matches = commandHandlersByCommand.entrySet()
-                    .stream()
-                    .filter(entry -> entry.getKey().startsWith(command))
-                    .map(Entry::getValue)
-                    .sorted(Comparator.comparing(a -> a.getLeft().getCommand()))
-                    .toList();
-
-            if (matches.size() == 1) {
-                handleCommand(commandPrefix.get(), event, argLine, matches.get(0));
-            } else if (matches.size() > 1) {
-                // is there an exact match?
-                matches.stream()
-                        .filter(entry -> entry.getKey().getCommand().equals(command))
-                        .findFirst()
-                        .ifPresentOrElse(
-                                match -> handleCommand(commandPrefix.get(), event, argLine, match),
-                                () -> event.respond("possible matches: " + possibleMatches(commandPrefix.get(), matches)));
+            Pair<Command, CommandHandler> match = commandIndex.resolve(command);
+            if (match != null) {
+                if (!commandRateLimiter.tryAcquire(nick, channel, match.getLeft())) {
+                    event.respond("that's enough " + commandPrefix.get() + match.getLeft().getCommand() + " for now, try again later.");
+                    return;
+                }
+                handleCommand(commandPrefix.get(), event, parsedMessage, argLine, match);
+            } else {
+                List<Pair<Command, CommandHandler>> matches = commandIndex.matches(command);
+                if (!matches.isEmpty()) {
+                    event.respond("possible matches: " + possibleMatches(commandPrefix.get(), matches));
+                }
             }
         } else if (rateLimitExceeded) {
             return;
         }
 
-        for (MessageHandler handler : messageHandlers) {
-            if (!handler.isOnlyTalkChannels() || isTalkChannel(channel)) {
-                if (handler.onMessage(event)) {
-                    return;
-                }
+        long candidates = messageHandlerIndex.candidates(parsedMessage);
+        for (; candidates != 0; candidates &= candidates - 1) {
+            MessageHandler handler = messageHandlerIndex.get(Long.numberOfTrailingZeros(candidates));
+            if (handler.onMessage(event, parsedMessage)) {
+                return;
             }
         }
     }
@@ -125,9 +128,10 @@ public class IrcBotConversationListener extends ListenerAdapter {
                 .collect(Collectors.joining(", "));
     }
 
-    private void handleCommand(String commandPrefix, MessageEvent event, String argLine, Pair<Command, CommandHandler> match) {
+    private void handleCommand(String commandPrefix, MessageEvent event, ParsedMessage parsedMessage, String argLine,
+            Pair<Command, CommandHandler> match) {
         Command command = match.getLeft();
-        CommandEvent cmdEvent = new CommandEvent(event, command, commandPrefix, Optional.ofNullable(argLine));
+        CommandEvent cmdEvent = new CommandEvent(event, command, commandPrefix, Optional.ofNullable(argLine), parsedMessage);
         CommandHandler handler = match.getRight();
 
         if (command.isPrivileged()) {
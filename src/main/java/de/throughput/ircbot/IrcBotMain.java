@@ -4,10 +4,12 @@ import com.google.api.services.youtube.YouTube;
 import com.google.api.services.youtube.YouTubeRequestInitializer;
 import com.openai.client.OpenAIClient;
 import com.openai.client.okhttp.OpenAIOkHttpClient;
+import de.throughput.ircbot.handler.ReminderCommandHandler;
 import org.apache.commons.lang3.StringUtils;
 import org.pircbotx.Configuration;
 import org.pircbotx.PircBotX;
 import org.pircbotx.UtilSSLSocketFactory;
+import org.pircbotx.cap.EnableCapHandler;
 import org.pircbotx.cap.SASLCapHandler;
 import org.pircbotx.cap.TLSCapHandler;
 import org.pircbotx.delay.StaticDelay;
@@ -57,7 +59,8 @@ public class IrcBotMain {
      */
     @Bean
     Configuration botConfig(IrcBotConfig botConfig, IrcBotControlListener cmdListener, IrcBotConversationListener convListener,
-            AdminCommandRunner adminCommandRunner) {
+            AdminCommandRunner adminCommandRunner, ReminderCommandHandler reminderHandler, PresenceIndex presenceIndex,
+            OrderedListenerManager listenerManager) {
         List<String> channels = configuredChannels(botConfig);
         validate(botConfig, channels);
 
@@ -65,7 +68,8 @@ public class IrcBotMain {
         boolean useSaslAuth = !botConfig.isTestMode() && hasNickservPassword;
         boolean delayAutoJoinUntilNickservAuth = !useSaslAuth && hasNickservPassword;
 
-        Configuration.Builder config = new Configuration.Builder().setAutoNickChange(true)
+        Configuration.Builder config = new Configuration.Builder().setListenerManager(listenerManager)
+                .setAutoNickChange(true)
                 .setAutoReconnect(true)
                 .setAutoReconnectDelay(new StaticDelay(DELAY_RECONNECT_MS))
                 .setVersion(getVersion())
@@ -73,6 +77,8 @@ public class IrcBotMain {
                 .addListener(cmdListener)
                 .addListener(convListener)
                 .addListener(adminCommandRunner)
+                .addListener(reminderHandler)
+                .addListener(presenceIndex)
                 .addServer(botConfig.getServer(), botConfig.getPort())
                 .setName(botConfig.getNick())
                 .setLogin(botConfig.getNick())
@@ -88,6 +94,10 @@ public class IrcBotMain {
                     }
                 });
 
+        // let the server tell us the accounts of users, see AdminCommandRunner
+        config.addCapHandler(new EnableCapHandler("account-notify", true));
+        config.addCapHandler(new EnableCapHandler("account-tag", true));
+
         if (useSaslAuth) {
             config.addCapHandler(new SASLCapHandler(botConfig.getNick(), botConfig.getNickservPassword()));
         }
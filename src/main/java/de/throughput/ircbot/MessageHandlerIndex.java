@@ -0,0 +1,118 @@
+package de.throughput.ircbot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.throughput.ircbot.api.MessageFilter;
+import de.throughput.ircbot.api.MessageHandler;
+import de.throughput.ircbot.api.ParsedMessage;
+
+/**
+ * Index of the {@link MessageFilter}s of all message handlers, built once at startup.
+ * <p>
+ * Each handler is represented by one bit, in handler order. Every trigger maps to the set of handlers
+ * declaring it, so the candidates for a message are found by a few hash lookups and string comparisons,
+ * regardless of the number of handlers. The handlers eligible for a channel are computed once per channel.
+ */
+final class MessageHandlerIndex {
+
+    private static final String URL_SCHEME_SEPARATOR = "://";
+
+    private final List<MessageHandler> handlers;
+    private final Set<String> talkChannels;
+    private final Map<String, Long> channelMasks = new ConcurrentHashMap<>();
+
+    private final long unfilteredMask;
+    private final Map<String, Long> exactMasks = new HashMap<>();
+    private final Map<String, Long> exactIgnoreCaseMasks = new HashMap<>();
+    private final Map<String, Long> prefixMasks = new HashMap<>();
+    private final long mentionsBotMask;
+    private final long containsUrlMask;
+
+    MessageHandlerIndex(List<MessageHandler> handlers, Set<String> talkChannels) {
+        if (handlers.size() > Long.SIZE) {
+            throw new IllegalStateException("at most " + Long.SIZE + " message handlers are supported");
+        }
+        this.handlers = List.copyOf(handlers);
+        this.talkChannels = talkChannels;
+
+        long unfiltered = 0;
+        long mentionsBot = 0;
+        long containsUrl = 0;
+        for (int i = 0; i < handlers.size(); i++) {
+            long bit = 1L << i;
+            MessageFilter filter = handlers.get(i).getMessageFilter();
+            if (filter.hasNoTriggers()) {
+                unfiltered |= bit;
+            }
+            filter.getExact().forEach(message -> exactMasks.merge(message, bit, (a, b) -> a | b));
+            filter.getExactIgnoreCase().forEach(message -> exactIgnoreCaseMasks.merge(message, bit, (a, b) -> a | b));
+            filter.getPrefixes().forEach(prefix -> prefixMasks.merge(prefix, bit, (a, b) -> a | b));
+            if (filter.isMentionsBot()) {
+                mentionsBot |= bit;
+            }
+            if (filter.isContainsUrl()) {
+                containsUrl |= bit;
+            }
+        }
+        this.unfilteredMask = unfiltered;
+        this.mentionsBotMask = mentionsBot;
+        this.containsUrlMask = containsUrl;
+    }
+
+    /**
+     * Finds the handlers which may be interested in a message.
+     *
+     * @param parsedMessage the message
+     * @return bit mask of candidate handlers, see {@link #get(int)}
+     */
+    long candidates(ParsedMessage parsedMessage) {
+        long channelMask = channelMasks.computeIfAbsent(parsedMessage.getChannel(), this::channelMask);
+        if (channelMask == 0) {
+            return 0;
+        }
+
+        String message = parsedMessage.getTrimmed();
+        long mask = unfilteredMask;
+        mask |= exactMasks.getOrDefault(message, 0L);
+        if (!exactIgnoreCaseMasks.isEmpty()) {
+            mask |= exactIgnoreCaseMasks.getOrDefault(parsedMessage.getLowerCase(), 0L);
+        }
+        for (Map.Entry<String, Long> prefix : prefixMasks.entrySet()) {
+            if (message.startsWith(prefix.getKey())) {
+                mask |= prefix.getValue();
+            }
+        }
+        if (mentionsBotMask != 0 && message.startsWith(parsedMessage.getBotNick())) {
+            mask |= mentionsBotMask;
+        }
+        if (containsUrlMask != 0 && message.contains(URL_SCHEME_SEPARATOR)) {
+            mask |= containsUrlMask;
+        }
+        return mask & channelMask;
+    }
+
+    /**
+     * @param index bit index from a mask returned by {@link #candidates(ParsedMessage)}
+     * @return the message handler
+     */
+    MessageHandler get(int index) {
+        return handlers.get(index);
+    }
+
+    private long channelMask(String channel) {
+        long mask = 0;
+        for (int i = 0; i < handlers.size(); i++) {
+            MessageHandler handler = handlers.get(i);
+            Set<String> channels = handler.getMessageFilter().getChannels();
+            if ((!handler.isOnlyTalkChannels() || talkChannels.contains(channel))
+                    && (channels == null || channels.contains(channel))) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,114 @@
+package de.throughput.ircbot;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import org.pircbotx.hooks.Event;
+import org.pircbotx.hooks.Listener;
+import org.pircbotx.hooks.managers.ThreadedListenerManager;
+import org.pircbotx.hooks.types.GenericChannelEvent;
+import org.pircbotx.hooks.types.GenericUserEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener manager which runs every event on a virtual thread.
+ * <p>
+ * Events are passed to each listener in order per channel (or per user for events outside of channels):
+ * a listener gets the next event for a channel only after it has finished the previous one. Different
+ * channels and listeners are processed concurrently, so a handler waiting for a slow upstream service only
+ * delays its own channel. {@link SerialListener}s get all events in one lane.
+ * <p>
+ * The number of events in flight is bounded by {@code ircbot.dispatcher.maxInFlight}. When the bound is
+ * reached, the input thread waits until an event is done, so no event is lost.
+ */
+@Component
+public class OrderedListenerManager extends ThreadedListenerManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrderedListenerManager.class);
+
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final Map<Lane, Deque<Runnable>> lanes = new ConcurrentHashMap<>();
+
+    public OrderedListenerManager(@Value("${ircbot.dispatcher.maxInFlight}") int maxInFlight) {
+        super(Executors.newVirtualThreadPerTaskExecutor());
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    protected void submitEvent(ExecutorService pool, Listener listener, Event event) {
+        if (!permits.tryAcquire()) {
+            LOG.warn("{} events in flight, waiting to dispatch {}", maxInFlight, event.getClass().getSimpleName());
+            permits.acquireUninterruptibly();
+        }
+        Runnable task = () -> executeListener(listener, event);
+        String target = listener instanceof SerialListener ? "" : laneTarget(event);
+        lanes.compute(new Lane(listener, target), (lane, queue) -> {
+            if (queue == null) {
+                // nothing queued for this lane, start a new worker; it waits until we're done here
+                queue = new ArrayDeque<>();
+                pool.execute(() -> drain(lane));
+            }
+            queue.add(task);
+            return queue;
+        });
+    }
+
+    /**
+     * Runs the queued events of a lane until it is empty; empty lanes are removed.
+     */
+    private void drain(Lane lane) {
+        Runnable task;
+        while ((task = poll(lane)) != null) {
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private Runnable poll(Lane lane) {
+        Runnable[] next = new Runnable[1];
+        lanes.computeIfPresent(lane, (key, queue) -> {
+            next[0] = queue.poll();
+            return next[0] != null ? queue : null;
+        });
+        return next[0];
+    }
+
+    private static String laneTarget(Event event) {
+        if (event instanceof GenericChannelEvent channelEvent && channelEvent.getChannel() != null) {
+            return channelEvent.getChannel().getName();
+        }
+        if (event instanceof GenericUserEvent userEvent && userEvent.getUser() != null) {
+            return userEvent.getUser().getNick();
+        }
+        return "";
+    }
+
+    /**
+     * @return number of events queued or being processed
+     */
+    public int getQueueDepth() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * @return number of listener/channel combinations with queued or running events
+     */
+    public int getActiveLanes() {
+        return lanes.size();
+    }
+
+    private record Lane(Listener listener, String target) {
+    }
+}
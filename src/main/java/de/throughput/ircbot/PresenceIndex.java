@@ -0,0 +1,190 @@
+package de.throughput.ircbot;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import org.pircbotx.User;
+import org.pircbotx.hooks.ListenerAdapter;
+import org.pircbotx.hooks.events.DisconnectEvent;
+import org.pircbotx.hooks.events.JoinEvent;
+import org.pircbotx.hooks.events.KickEvent;
+import org.pircbotx.hooks.events.NickChangeEvent;
+import org.pircbotx.hooks.events.PartEvent;
+import org.pircbotx.hooks.events.QuitEvent;
+import org.pircbotx.hooks.events.ServerResponseEvent;
+import org.pircbotx.hooks.events.UserListEvent;
+import org.springframework.stereotype.Component;
+
+import de.throughput.ircbot.api.CaseMapping;
+
+/**
+ * Knows which nicks are on which of the bot's channels.
+ * <p>
+ * Maintained from JOIN, PART, QUIT, KICK, NICK and NAMES, so handlers can check presence without walking
+ * the users of the pircbotx DAO. Nicks and channels are compared according to the server's CASEMAPPING,
+ * which is taken from RPL_ISUPPORT here and used by {@link CaseMapping#caseFold(String)}.
+ */
+@Component
+public class PresenceIndex extends ListenerAdapter implements SerialListener {
+
+    private static final int RPL_ISUPPORT = 5;
+
+    private final Map<String, Set<String>> channelsByNick = new ConcurrentHashMap<>();
+    private final NavigableSet<String> nicks = new ConcurrentSkipListSet<>();
+
+    /**
+     * @param nick    nick
+     * @param channel channel name
+     * @return {@code true} if the nick is on the channel
+     */
+    public boolean isOnChannel(String nick, String channel) {
+        Set<String> channels = channelsByNick.get(fold(nick));
+        return channels != null && channels.contains(fold(channel));
+    }
+
+    /**
+     * @param nick nick
+     * @return {@code true} if the nick is on any of the bot's channels
+     */
+    public boolean isOnline(String nick) {
+        return channelsByNick.containsKey(fold(nick));
+    }
+
+    /**
+     * @param prefix beginning of a nick, e.g. "gribble" for gribble, gribble_ and gribble2
+     * @return {@code true} if any nick on the bot's channels starts with the prefix
+     */
+    public boolean isAnyOnline(String prefix) {
+        String folded = fold(prefix);
+        String first = nicks.ceiling(folded);
+        return first != null && first.startsWith(folded);
+    }
+
+    /**
+     * @param prefix beginning of a nick
+     * @return casefolded nicks on the bot's channels starting with the prefix
+     */
+    public Set<String> getNicksStartingWith(String prefix) {
+        String folded = fold(prefix);
+        return Collections.unmodifiableSet(nicks.subSet(folded, true, folded + Character.MAX_VALUE, false));
+    }
+
+    @Override
+    public void onServerResponse(ServerResponseEvent event) {
+        if (event.getCode() == RPL_ISUPPORT) {
+            // sent on connect, before the bot joins any channel
+            for (String token : event.getParsedResponse()) {
+                if (token.regionMatches(true, 0, "CASEMAPPING=", 0, 12)) {
+                    CaseMapping.setServerMapping(CaseMapping.of(token.substring(12)));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onJoin(JoinEvent event) {
+        add(event.getUserHostmask().getNick(), event.getChannel().getName());
+    }
+
+    @Override
+    public void onUserList(UserListEvent event) {
+        String channel = event.getChannel().getName();
+        for (User user : event.getUsers()) {
+            add(user.getNick(), channel);
+        }
+    }
+
+    @Override
+    public void onPart(PartEvent event) {
+        String nick = event.getUserHostmask().getNick();
+        if (nick.equals(event.getBot().getNick())) {
+            removeChannel(event.getChannel().getName());
+        } else {
+            remove(nick, event.getChannel().getName());
+        }
+    }
+
+    @Override
+    public void onKick(KickEvent event) {
+        String nick = event.getRecipientHostmask().getNick();
+        if (nick.equals(event.getBot().getNick())) {
+            removeChannel(event.getChannel().getName());
+        } else {
+            remove(nick, event.getChannel().getName());
+        }
+    }
+
+    @Override
+    public void onQuit(QuitEvent event) {
+        removeNick(event.getUserHostmask().getNick());
+    }
+
+    @Override
+    public void onNickChange(NickChangeEvent event) {
+        rename(event.getOldNick(), event.getNewNick());
+    }
+
+    @Override
+    public void onDisconnect(DisconnectEvent event) {
+        channelsByNick.clear();
+        nicks.clear();
+    }
+
+    void add(String nick, String channel) {
+        String foldedChannel = fold(channel);
+        channelsByNick.compute(fold(nick), (key, channels) -> {
+            Set<String> result = channels == null ? ConcurrentHashMap.newKeySet() : channels;
+            result.add(foldedChannel);
+            nicks.add(key);
+            return result;
+        });
+    }
+
+    void remove(String nick, String channel) {
+        String foldedChannel = fold(channel);
+        channelsByNick.computeIfPresent(fold(nick), (key, channels) -> {
+            channels.remove(foldedChannel);
+            return retain(key, channels);
+        });
+    }
+
+    void removeNick(String nick) {
+        channelsByNick.computeIfPresent(fold(nick), (key, channels) -> {
+            nicks.remove(key);
+            return null;
+        });
+    }
+
+    void removeChannel(String channel) {
+        String foldedChannel = fold(channel);
+        for (String nick : channelsByNick.keySet()) {
+            channelsByNick.computeIfPresent(nick, (key, channels) -> {
+                channels.remove(foldedChannel);
+                return retain(key, channels);
+            });
+        }
+    }
+
+    void rename(String oldNick, String newNick) {
+        Set<String> channels = channelsByNick.remove(fold(oldNick));
+        if (channels != null) {
+            nicks.remove(fold(oldNick));
+            channels.forEach(channel -> add(newNick, channel));
+        }
+    }
+
+    private Set<String> retain(String nick, Set<String> channels) {
+        if (channels.isEmpty()) {
+            nicks.remove(nick);
+            return null;
+        }
+        return channels;
+    }
+
+    private static String fold(String name) {
+        return CaseMapping.caseFold(name);
+    }
+}
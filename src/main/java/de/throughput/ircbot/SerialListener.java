@@ -0,0 +1,12 @@
+package de.throughput.ircbot;
+
+import org.pircbotx.hooks.Listener;
+
+/**
+ * Listener keeping state which depends on the order of events, e.g. who is on which channel.
+ * <p>
+ * {@link OrderedListenerManager} passes all events to such a listener in one lane, in the order they were
+ * received, so a QUIT can't overtake the JOIN before it. Serial listeners must not block for long.
+ */
+public interface SerialListener extends Listener {
+}
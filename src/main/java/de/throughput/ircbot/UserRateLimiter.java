@@ -1,12 +1,9 @@
 package de.throughput.ircbot;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-import de.throughput.ircbot.handler.LagerfeldAiCommandHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,8 +11,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import de.throughput.ircbot.api.CaseMapping;
+
 /**
  * Implements per-user rate limiting for commands.
+ * <p>
+ * Each tracked nick has a fixed-size ring of its most recent interaction times. Idle nicks are evicted
+ * periodically, and the number of tracked nicks is capped. When the cap is reached, idle nicks are evicted
+ * right away; if there are none, new nicks aren't limited until there is room again, so a flood of fresh
+ * nicks can't get innocent users limited.
  */
 @Component
 public class UserRateLimiter {
@@ -25,8 +29,10 @@ public class UserRateLimiter {
     private final int maxInteractions;
     private final long checkPeriodMillis;
     private final long penaltyMillis;
-    private final Map<String, Set<Long>> botInteractionTimesByNick = new HashMap<>();
+    private final int maxTrackedNicks;
+    private final Map<String, InteractionWindow> interactionsByNick = new ConcurrentHashMap<>();
     private final Map<String, Long> penaltyBench = new ConcurrentHashMap<>();
+    private volatile long lastEviction;
 
     private final IrcBotConfig config;
 
@@ -35,10 +41,12 @@ public class UserRateLimiter {
             @Value("${ircbot.ratelimit.maxInteractions}") int maxInteractions,
             @Value("${ircbot.ratelimit.checkPeriodMillis}") long checkPeriodMillis,
             @Value("${ircbot.ratelimit.penaltyMillis}") long penaltyMillis,
+            @Value("${ircbot.ratelimit.maxTrackedNicks}") int maxTrackedNicks,
             IrcBotConfig config) {
         this.maxInteractions = maxInteractions;
         this.checkPeriodMillis = checkPeriodMillis;
         this.penaltyMillis = penaltyMillis;
+        this.maxTrackedNicks = maxTrackedNicks;
         this.config = config;
     }
 
@@ -52,8 +60,16 @@ public class UserRateLimiter {
         if (config.isTestMode()) {
             return false;
         }
-        if (checkInteractions(nick) > maxInteractions) {
-            penaltyBench.put(nick, System.currentTimeMillis());
+        return limit(nick, System.currentTimeMillis());
+    }
+
+    boolean limit(String nick, long currentTimeMillis) {
+        String key = CaseMapping.caseFold(nick);
+        InteractionWindow window = window(key, currentTimeMillis);
+        if (window != null && window.exceeded(currentTimeMillis, currentTimeMillis - checkPeriodMillis)) {
+            if (penaltyBench.size() < maxTrackedNicks) {
+                penaltyBench.put(key, currentTimeMillis);
+            }
             LOG.info("user '{}' is rate limited", nick);
             return true;
         }
@@ -67,35 +83,83 @@ public class UserRateLimiter {
      * @return {@code true} if the user has exceeded the limit within the last {@code ircbot.ratelimit.penaltyMillis} milliseconds
      */
     public boolean ignore(String nick) {
-        return System.currentTimeMillis() - penaltyBench.getOrDefault(nick, 0L) < penaltyMillis;
+        Long penaltyTime = penaltyBench.get(CaseMapping.caseFold(nick));
+        return penaltyTime != null && System.currentTimeMillis() - penaltyTime < penaltyMillis;
     }
 
     /**
-     * Checks and updates interactions with {@code nick}.
+     * Gets the interaction window of {@code nick}.
      *
-     * @param nick nick
-     * @return number of interactions with {@code nick} within the last {@link this#checkPeriodMillis}
+     * @return the window, or {@code null} if too many nicks are tracked
      */
-    private int checkInteractions(String nick) {
-        long currentTimeMillis = System.currentTimeMillis();
-        long cutOff = currentTimeMillis - checkPeriodMillis;
-        synchronized (botInteractionTimesByNick) {
-            Set<Long> interactionTimes = botInteractionTimesByNick.computeIfAbsent(nick, key -> new HashSet<>());
-            interactionTimes.removeIf(time -> time < cutOff);
-            interactionTimes.add(currentTimeMillis);
-            return interactionTimes.size();
+    private InteractionWindow window(String nick, long currentTimeMillis) {
+        InteractionWindow window = interactionsByNick.get(nick);
+        if (window != null) {
+            return window;
+        }
+        if (interactionsByNick.size() >= maxTrackedNicks) {
+            // at most once per second, so a flood doesn't scan the windows for every new nick
+            if (currentTimeMillis - lastEviction < 1000) {
+                return null;
+            }
+            lastEviction = currentTimeMillis;
+            evictIdle(currentTimeMillis);
+            if (interactionsByNick.size() >= maxTrackedNicks) {
+                return null;
+            }
         }
+        return interactionsByNick.computeIfAbsent(nick, key -> new InteractionWindow(maxInteractions + 1));
     }
 
     /**
-     * Removes old entries.
+     * Removes idle nicks and expired penalties.
      */
     @Scheduled(fixedRate = 60000)
     public void evictAll() {
-        synchronized (botInteractionTimesByNick) {
-            long cutOff = System.currentTimeMillis() - checkPeriodMillis;
-            botInteractionTimesByNick.values()
-                    .forEach(interactionTimes -> interactionTimes.removeIf(time -> time < cutOff));
+        long currentTimeMillis = System.currentTimeMillis();
+        evictIdle(currentTimeMillis);
+        penaltyBench.values().removeIf(penaltyTime -> currentTimeMillis - penaltyTime >= penaltyMillis);
+    }
+
+    private void evictIdle(long currentTimeMillis) {
+        long cutOff = currentTimeMillis - checkPeriodMillis;
+        interactionsByNick.values().removeIf(window -> window.idleSince(cutOff));
+    }
+
+    /**
+     * @return number of nicks with their own interaction window
+     */
+    public int getTrackedNicks() {
+        return interactionsByNick.size();
+    }
+
+    /**
+     * Ring of the most recent interaction times of one nick.
+     */
+    private static final class InteractionWindow {
+
+        private final long[] times;
+        private int next;
+
+        InteractionWindow(int size) {
+            times = new long[size];
+            Arrays.fill(times, Long.MIN_VALUE);
+        }
+
+        /**
+         * Records an interaction.
+         *
+         * @return {@code true} if all interactions in the ring, i.e. more than the allowed number, happened after {@code cutOff}
+         */
+        synchronized boolean exceeded(long now, long cutOff) {
+            times[next] = now;
+            next = (next + 1) % times.length;
+            // the slot to be overwritten next holds the oldest interaction
+            return times[next] >= cutOff;
+        }
+
+        synchronized boolean idleSince(long cutOff) {
+            return times[(next + times.length - 1) % times.length] < cutOff;
         }
     }
 
@@ -0,0 +1,90 @@
+package de.throughput.ircbot.api;
+
+import java.util.Locale;
+
+/**
+ * Case mappings announced by servers in RPL_ISUPPORT.
+ * <p>
+ * Nicks and channel names are compared after casefolding them with {@link #caseFold(String)}, which uses the
+ * mapping of the server the bot is connected to.
+ */
+public enum CaseMapping {
+
+    /**
+     * Only {@code A-Z} are folded.
+     */
+    ASCII('Z'),
+    /**
+     * {@code []\^} are the upper case of <code>{}|~</code>.
+     */
+    RFC1459('^'),
+    /**
+     * Like RFC1459, but without {@code ~} and {@code ^}.
+     */
+    STRICT_RFC1459(']');
+
+    /**
+     * RFC1459 is the default until the server announces otherwise.
+     */
+    private static volatile CaseMapping serverMapping = RFC1459;
+
+    private final char lastFolded;
+
+    CaseMapping(char lastFolded) {
+        this.lastFolded = lastFolded;
+    }
+
+    /**
+     * @param name value of the {@code CASEMAPPING} token
+     * @return the mapping; RFC1459 for unknown names
+     */
+    public static CaseMapping of(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "ascii" -> ASCII;
+            case "strict-rfc1459" -> STRICT_RFC1459;
+            default -> RFC1459;
+        };
+    }
+
+    /**
+     * @return the mapping of the server
+     */
+    public static CaseMapping getServerMapping() {
+        return serverMapping;
+    }
+
+    /**
+     * @param mapping the mapping announced by the server
+     */
+    public static void setServerMapping(CaseMapping mapping) {
+        serverMapping = mapping;
+    }
+
+    /**
+     * Casefolds a nick or channel name according to the server's mapping.
+     *
+     * @param name nick or channel name
+     * @return the casefolded name
+     */
+    public static String caseFold(String name) {
+        return serverMapping.fold(name);
+    }
+
+    /**
+     * @param name nick or channel name
+     * @return the name casefolded according to this mapping
+     */
+    public String fold(String name) {
+        char[] chars = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z' || c >= '[' && c <= lastFolded) {
+                if (chars == null) {
+                    chars = name.toCharArray();
+                }
+                chars[i] = (char) (c + 32);
+            }
+        }
+        return chars == null ? name : new String(chars);
+    }
+}
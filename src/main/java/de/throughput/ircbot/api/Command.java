@@ -3,23 +3,29 @@ package de.throughput.ircbot.api;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 /**
  * Defines a command that can be executed from talkchannels.
  */
 @Getter
-@RequiredArgsConstructor
+@AllArgsConstructor
 @EqualsAndHashCode(of = "command")
 public class Command {
 
     private final String command;
     private final String usage;
     private final boolean privileged;
+    private final CommandCost cost;
 
     public Command(String command, String usage) {
-        this.command = command;
-        this.usage = usage;
-        this.privileged = false;
+        this(command, usage, false, CommandCost.DEFAULT);
+    }
+
+    public Command(String command, String usage, boolean privileged) {
+        this(command, usage, privileged, CommandCost.DEFAULT);
+    }
+
+    public Command(String command, String usage, CommandCost cost) {
+        this(command, usage, false, cost);
     }
 }
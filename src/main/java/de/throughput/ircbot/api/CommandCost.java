@@ -0,0 +1,60 @@
+package de.throughput.ircbot.api;
+
+import java.time.Duration;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Cost of executing a command.
+ * <p>
+ * The weight is charged against each user's budget; cheap commands weigh 1. Commands backed by expensive or
+ * quota-limited services can additionally be limited per channel and globally, regardless of the user.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CommandCost {
+
+    /**
+     * Cost of commands which don't declare one.
+     */
+    public static final CommandCost DEFAULT = new CommandCost(1, null, null);
+
+    private final int weight;
+    /**
+     * Budget per channel; {@code null} for no limit.
+     */
+    private final Budget channelBudget;
+    /**
+     * Budget across all channels; {@code null} for no limit.
+     */
+    private final Budget globalBudget;
+
+    /**
+     * @param weight amount charged against the user's budget per execution
+     * @return a cost with the given weight, without channel or global limits
+     */
+    public static CommandCost weight(int weight) {
+        return new CommandCost(weight, null, null);
+    }
+
+    /**
+     * @return a copy of this cost, allowing {@code permits} executions per channel within {@code period}
+     */
+    public CommandCost perChannel(int permits, Duration period) {
+        return new CommandCost(weight, new Budget(permits, period), globalBudget);
+    }
+
+    /**
+     * @return a copy of this cost, allowing {@code permits} executions across all channels within {@code period}
+     */
+    public CommandCost global(int permits, Duration period) {
+        return new CommandCost(weight, channelBudget, new Budget(permits, period));
+    }
+
+    /**
+     * Allows {@code permits} executions within {@code period}.
+     */
+    public record Budget(int permits, Duration period) {
+    }
+}
@@ -16,6 +16,7 @@ public class CommandEvent {
     private final Command command;
     private final String commandPrefix;
     private final Optional<String> argLine;
+    private final ParsedMessage parsedMessage;
 
     public void respond(String answer) {
         event.respond(answer);
@@ -0,0 +1,120 @@
+package de.throughput.ircbot.api;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import lombok.Getter;
+
+/**
+ * Cheap triggers declared by a {@link MessageHandler}.
+ * <p>
+ * The handler is only called for messages on matching channels which trigger at least one of the
+ * declared triggers; if no trigger is declared, it is called for all messages on matching channels.
+ * Triggers are checked against the trimmed message and must not be stricter than the handler itself.
+ */
+@Getter
+public final class MessageFilter {
+
+    /**
+     * Matches every message.
+     */
+    public static final MessageFilter ANY = builder().build();
+
+    private final Set<String> exact;
+    private final Set<String> exactIgnoreCase;
+    private final List<String> prefixes;
+    private final boolean mentionsBot;
+    private final boolean containsUrl;
+    /**
+     * Channels the handler is interested in; {@code null} for all channels.
+     */
+    private final Set<String> channels;
+
+    private MessageFilter(Builder builder) {
+        this.exact = Set.copyOf(builder.exact);
+        this.exactIgnoreCase = Set.copyOf(builder.exactIgnoreCase);
+        this.prefixes = List.copyOf(builder.prefixes);
+        this.mentionsBot = builder.mentionsBot;
+        this.containsUrl = builder.containsUrl;
+        this.channels = builder.channels;
+    }
+
+    /**
+     * @return {@code true} if no trigger is declared
+     */
+    public boolean hasNoTriggers() {
+        return exact.isEmpty() && exactIgnoreCase.isEmpty() && prefixes.isEmpty() && !mentionsBot && !containsUrl;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private final Set<String> exact = new LinkedHashSet<>();
+        private final Set<String> exactIgnoreCase = new LinkedHashSet<>();
+        private final Set<String> prefixes = new LinkedHashSet<>();
+        private boolean mentionsBot;
+        private boolean containsUrl;
+        private Set<String> channels;
+
+        private Builder() {
+        }
+
+        /**
+         * Triggers if the message equals one of the given strings.
+         */
+        public Builder exact(String... messages) {
+            exact.addAll(List.of(messages));
+            return this;
+        }
+
+        /**
+         * Triggers if the message equals one of the given strings, ignoring case.
+         */
+        public Builder exactIgnoreCase(String... messages) {
+            for (String message : messages) {
+                exactIgnoreCase.add(message.toLowerCase(Locale.ROOT));
+            }
+            return this;
+        }
+
+        /**
+         * Triggers if the message starts with one of the given strings.
+         */
+        public Builder prefix(String... messagePrefixes) {
+            prefixes.addAll(List.of(messagePrefixes));
+            return this;
+        }
+
+        /**
+         * Triggers if the message starts with the bot's current nick.
+         */
+        public Builder mentionsBot() {
+            mentionsBot = true;
+            return this;
+        }
+
+        /**
+         * Triggers if the message contains a URL scheme separator.
+         */
+        public Builder containsUrl() {
+            containsUrl = true;
+            return this;
+        }
+
+        /**
+         * Restricts the handler to the given channels.
+         */
+        public Builder channels(Set<String> channelNames) {
+            channels = Set.copyOf(channelNames);
+            return this;
+        }
+
+        public MessageFilter build() {
+            return new MessageFilter(this);
+        }
+    }
+}
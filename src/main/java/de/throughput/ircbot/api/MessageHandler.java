@@ -19,9 +19,19 @@ public interface MessageHandler {
     /**
      * Called for every {@link MessageEvent} on relevant channels.
      *
-     * @param event message event
+     * @param event   message event
+     * @param message the parsed message
      * @return {@code true} if the message was handled and further processing should cease
      */
-    boolean onMessage(MessageEvent event);
+    boolean onMessage(MessageEvent event, ParsedMessage message);
+
+    /**
+     * Declares which messages the handler may be interested in; it is not called for other messages.
+     *
+     * @return message filter; {@link MessageFilter#ANY} by default
+     */
+    default MessageFilter getMessageFilter() {
+        return MessageFilter.ANY;
+    }
 
 }
@@ -0,0 +1,125 @@
+package de.throughput.ircbot.api;
+
+import java.util.Locale;
+import org.pircbotx.hooks.events.MessageEvent;
+
+/**
+ * Read-only view of a channel message, shared by all handlers processing the message.
+ * <p>
+ * The derived forms of the message are computed on first access and then reused, so every
+ * form is computed at most once per message, no matter how many handlers ask for it.
+ */
+public final class ParsedMessage {
+
+    private static final String TRAILING_PUNCTUATION = ",;.!?";
+
+    private final MessageEvent event;
+    private final String message;
+
+    private String trimmed;
+    private String lowerCase;
+    private String normalized;
+    private String addressedText;
+    private boolean addressedParsed;
+
+    private ParsedMessage(MessageEvent event) {
+        this.event = event;
+        this.message = event.getMessage();
+    }
+
+    public static ParsedMessage of(MessageEvent event) {
+        return new ParsedMessage(event);
+    }
+
+    /**
+     * @return the message as received
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public String getChannel() {
+        return event.getChannel().getName();
+    }
+
+    public String getNick() {
+        return event.getUser().getNick();
+    }
+
+    public String getBotNick() {
+        return event.getBot().getNick();
+    }
+
+    /**
+     * @return the message without leading and trailing whitespace
+     */
+    public String getTrimmed() {
+        if (trimmed == null) {
+            trimmed = message.trim();
+        }
+        return trimmed;
+    }
+
+    /**
+     * @return the trimmed message in lower case (root locale)
+     */
+    public String getLowerCase() {
+        if (lowerCase == null) {
+            lowerCase = getTrimmed().toLowerCase(Locale.ROOT);
+        }
+        return lowerCase;
+    }
+
+    /**
+     * @return the message in lower case, stripped of whitespace and of trailing punctuation
+     */
+    public String getNormalized() {
+        if (normalized == null) {
+            String stripped = message.strip();
+            int end = stripped.length();
+            while (end > 0 && TRAILING_PUNCTUATION.indexOf(stripped.charAt(end - 1)) >= 0) {
+                end--;
+            }
+            if (end < stripped.length()) {
+                while (end > 0 && isWhitespace(stripped.charAt(end - 1))) {
+                    end--;
+                }
+            }
+            normalized = stripped.substring(0, end)
+                    .toLowerCase(Locale.ROOT);
+        }
+        return normalized;
+    }
+
+    /**
+     * @return {@code true} if the message starts with the bot's nick, followed by ':' or ','
+     */
+    public boolean isAddressedToBot() {
+        return getAddressedText() != null;
+    }
+
+    /**
+     * @return the message without the leading bot nick, trimmed; {@code null} if the message isn't addressed to the bot
+     */
+    public String getAddressedText() {
+        if (!addressedParsed) {
+            String text = getTrimmed();
+            String botNick = getBotNick();
+            if (text.length() > botNick.length() && text.startsWith(botNick)) {
+                char separator = text.charAt(botNick.length());
+                if (separator == ':' || separator == ',') {
+                    addressedText = text.substring(botNick.length() + 1).trim();
+                }
+            }
+            addressedParsed = true;
+        }
+        return addressedText;
+    }
+
+    /**
+     * @return true if the character matches {@code \s}
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
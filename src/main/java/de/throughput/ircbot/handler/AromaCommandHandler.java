@@ -1,10 +1,12 @@
 package de.throughput.ircbot.handler;
 
 import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Set;
 
 /**
@@ -18,7 +20,7 @@ public class AromaCommandHandler implements CommandHandler {
     private static final int MAX_IRC_MESSAGE_LENGTH = 420;
 
     private static final Command CMD_AROMA = new Command("aroma",
-            "aroma <description> - generate an aroma description based on the given hint");
+            "aroma <description> - generate an aroma description based on the given hint", CommandCost.weight(3).perChannel(20, Duration.ofHours(1)));
 
     private static final String PROMPT_TEMPLATE =
             "Beschreibe den Geschmack eines Weins, wie ein Weinkenner ihn beschreiben w\u00fcrde; " +
@@ -6,22 +6,25 @@ import org.pircbotx.PircBotX;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
+import de.throughput.ircbot.HttpService;
 import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 
 import java.math.BigDecimal;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Locale;
 import java.util.Set;
 
 @Component
 public class AthCommandHandler implements CommandHandler {
 
-    private static final Command CMD_ATH = new Command("ath", "ath [<id>] - get all-time-high of a cryptocurrency by CoinGecko ID (default: bitcoin) in USD and EUR with dates");
+    private static final Command CMD_ATH = new Command("ath", "ath [<id>] - get all-time-high of a cryptocurrency by CoinGecko ID (default: bitcoin) in USD and EUR with dates",
+            CommandCost.weight(2).global(60, Duration.ofHours(1)));
     private static final String API_URL = "https://api.coingecko.com/api/v3/coins/";
     private static final String DEFAULT_ID = "bitcoin";
 
@@ -29,11 +32,11 @@ public class AthCommandHandler implements CommandHandler {
     private String apiKey;
 
     private final PircBotX bot;
-    private final HttpClient httpClient;
+    private final HttpService httpService;
 
-    public AthCommandHandler(@Lazy PircBotX bot) {
+    public AthCommandHandler(@Lazy PircBotX bot, HttpService httpService) {
         this.bot = bot;
-        this.httpClient = HttpClient.newHttpClient();
+        this.httpService = httpService;
     }
 
     @Override
@@ -61,7 +64,7 @@ public class AthCommandHandler implements CommandHandler {
                 .GET()
                 .build();
 
-        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        httpService.sendAsync(request, HttpResponse.BodyHandlers.ofString())
                 .thenAccept(response -> {
                     if (response.statusCode() != 200) {
                         command.respond("Coin not found or API error");
@@ -5,11 +5,11 @@ import static de.throughput.ircbot.Util.urlEnc;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.text.NumberFormat;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Currency;
 import java.util.List;
@@ -23,15 +23,16 @@ import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.Setter;
 import org.pircbotx.Colors;
-import org.pircbotx.PircBotX;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.SerializedName;
 
+import de.throughput.ircbot.HttpService;
+import de.throughput.ircbot.PresenceIndex;
 import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 
@@ -58,17 +59,25 @@ public class CryptoCommandHandler implements CommandHandler {
     private static final String API_URL_QUOTES_LATEST = "https://pro-api.coinmarketcap.com/v1/cryptocurrency/quotes/latest";
     private static final String API_URL_LISTINGS_LATEST = "https://pro-api.coinmarketcap.com/v1/cryptocurrency/listings/latest";
 
+    /**
+     * CoinMarketCap calls count against the monthly credit limit of the API key.
+     */
+    private static final CommandCost CMC_COST = CommandCost.weight(1).global(30, Duration.ofHours(1));
+
     public static final Command CMD_CRYPTO = new Command("crypto", "crypto [<amount>] <symbols> [in <currency>] - "
-            + "get price information on crypto currencies - currency defaults to USD, amount to 1");
-    private static final Command CMD_TLAST = new Command("tlast", "tlast - get the latest bitcoin price in USD if gribble isn't online");
+            + "get price information on crypto currencies - currency defaults to USD, amount to 1", CMC_COST);
+    private static final Command CMD_TLAST = new Command("tlast", "tlast - get the latest bitcoin price in USD if gribble isn't online", CMC_COST);
 
     private final String cmcApiKey;
-    private final PircBotX bot;
+    private final PresenceIndex presenceIndex;
+    private final HttpService httpService;
 
 
-    public CryptoCommandHandler(@Value("${coinmarketcap.api.key}") String cmcApiKey, @Lazy PircBotX bot) {
+    public CryptoCommandHandler(@Value("${coinmarketcap.api.key}") String cmcApiKey, PresenceIndex presenceIndex,
+            HttpService httpService) {
         this.cmcApiKey = cmcApiKey;
-        this.bot = bot;
+        this.presenceIndex = presenceIndex;
+        this.httpService = httpService;
     }
 
     @Override
@@ -115,8 +124,7 @@ public class CryptoCommandHandler implements CommandHandler {
     }
 
     private boolean isGribbleOnline() {
-        return bot.getUserChannelDao().getAllUsers().stream()
-                .anyMatch(user -> user.getNick().toLowerCase(Locale.ROOT).startsWith("gribble"));
+        return presenceIndex.isAnyOnline("gribble");
     }
 
     private CmcLatestQuoteQuery toCmcQuery(String input) {
@@ -146,7 +154,7 @@ public class CryptoCommandHandler implements CommandHandler {
                 .GET()
                 .build();
 
-        HttpClient.newHttpClient()
+        httpService
                 .sendAsync(request, BodyHandlers.ofString())
                 .thenAccept(httpResponse -> processResponse(command, httpResponse, query));
     }
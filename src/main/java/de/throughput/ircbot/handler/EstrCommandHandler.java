@@ -1,7 +1,6 @@
 package de.throughput.ircbot.handler;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.Set;
@@ -11,6 +10,7 @@ import lombok.Setter;
 import org.springframework.stereotype.Component;
 
 import com.google.gson.Gson;
+import de.throughput.ircbot.HttpService;
 import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
@@ -25,6 +25,12 @@ public class EstrCommandHandler implements CommandHandler {
 
     private static final Command CMD_ESTR = new Command("estr", "estr - get the current Euro short term rate");
 
+    private final HttpService httpService;
+
+    public EstrCommandHandler(HttpService httpService) {
+        this.httpService = httpService;
+    }
+
     @Override
     public Set<Command> getCommands() {
         return Set.of(CMD_ESTR);
@@ -36,7 +42,7 @@ public class EstrCommandHandler implements CommandHandler {
                 .GET()
                 .build();
 
-        HttpClient.newHttpClient()
+        httpService
                 .sendAsync(request, HttpResponse.BodyHandlers.ofString())
                 .thenAccept(httpResponse -> processResponse(command, httpResponse));
 
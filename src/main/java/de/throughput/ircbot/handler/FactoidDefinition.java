@@ -0,0 +1,60 @@
+package de.throughput.ircbot.handler;
+
+import java.util.Optional;
+
+/**
+ * A factoid definition like "a is b" or "a are also b".
+ * <p>
+ * Parsed in a single pass over the message, with the same results as the former regular expression
+ * {@code ^\s*(\S{1,254}(?<![:,;.?]))\s+(is also|is|are also|are)\s+(.*{1,}\S)\s*$}, which backtracked heavily
+ * on long lines with many spaces.
+ *
+ * @param key  the key, as written
+ * @param verb "is" or "are"
+ * @param also true if the fact is to be appended to an existing one
+ * @param fact the fact
+ */
+record FactoidDefinition(String key, String verb, boolean also, String fact) {
+
+    private static final int MAX_KEY_CODE_POINTS = 254;
+    private static final String KEY_END_EXCLUDED = ":,;.?";
+    /**
+     * In the order of the former alternation.
+     */
+    private static final String[] VERBS = {"is also", "is", "are also", "are"};
+
+    /**
+     * @param message the message
+     * @return the definition, or empty if the message is not a factoid definition
+     */
+    static Optional<FactoidDefinition> parse(String message) {
+        int keyStart = Whitespace.skip(message, 0);
+        int keyEnd = keyStart;
+        while (keyEnd < message.length() && !Whitespace.isWhitespace(message.charAt(keyEnd))) {
+            keyEnd++;
+        }
+        if (keyEnd == keyStart || keyEnd == message.length()
+                || KEY_END_EXCLUDED.indexOf(message.charAt(keyEnd - 1)) >= 0
+                || message.codePointCount(keyStart, keyEnd) > MAX_KEY_CODE_POINTS) {
+            return Optional.empty();
+        }
+        int verbStart = Whitespace.skip(message, keyEnd);
+        int factEnd = Whitespace.trimEnd(message, verbStart, message.length());
+        for (String verb : VERBS) {
+            int verbEnd = verbStart + verb.length();
+            if (!message.startsWith(verb, verbStart) || verbEnd == message.length()
+                    || !Whitespace.isWhitespace(message.charAt(verbEnd))) {
+                continue;
+            }
+            int factStart = Whitespace.skip(message, verbEnd);
+            // the last character of the fact only has to be non-whitespace
+            if (factStart < factEnd && !Whitespace.containsLineTerminator(message, factStart, factEnd - 1)) {
+                boolean also = verb.endsWith(" also");
+                return Optional.of(new FactoidDefinition(message.substring(keyStart, keyEnd),
+                        also ? verb.substring(0, verb.indexOf(' ')) : verb, also,
+                        message.substring(factStart, factEnd)));
+            }
+        }
+        return Optional.empty();
+    }
+}
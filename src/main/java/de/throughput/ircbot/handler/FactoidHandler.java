@@ -2,12 +2,13 @@ package de.throughput.ircbot.handler;
 
 import static java.util.stream.Collectors.toMap;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.pircbotx.hooks.events.MessageEvent;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -17,7 +18,9 @@ import de.throughput.ircbot.IrcBotConfig;
 import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
+import de.throughput.ircbot.api.MessageFilter;
 import de.throughput.ircbot.api.MessageHandler;
+import de.throughput.ircbot.api.ParsedMessage;
 
 /**
  * Command- and message handler which updates, retrieves and manages factoids.
@@ -26,88 +29,107 @@ import de.throughput.ircbot.api.MessageHandler;
  * will reply "a is b" and/or "a are b", respectively. Users can also append information with "a is/are also".
  * <p>
  * Factoids can be deleted by anyone by uttering "!forget a".
+ * <p>
+ * All keys are held in memory, so utterances which aren't factoid keys never hit the database. Responses for
+ * recently used keys are cached.
  */
 @Component
 public class FactoidHandler implements CommandHandler, MessageHandler {
 
     private static final int MAX_KEY_LENGTH = 255;
+    private static final int MAX_CACHED_RESPONSES = 256;
 
     private static final Command CMD_FORGET = new Command("forget", "Usage: !forget <key> - forgets a fact");
 
-    private static final Pattern PATTERN_FACTOID_DEFINITION = Pattern.compile("^\\s*(\\S{1,254}(?<![:,;.?]))\\s+(is also|is|are also|are)\\s+(.*{1,}\\S)\\s*$");
-
     private final JdbcTemplate jdbc;
     private final Set<String> factoidChannels;
+    private final MessageFilter messageFilter;
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> responsesByKey = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_CACHED_RESPONSES;
+                }
+            });
 
     public FactoidHandler(JdbcTemplate jdbc, IrcBotConfig botConfig) {
         this.jdbc = jdbc;
         this.factoidChannels = botConfig.getFactoidChannels();
+        this.messageFilter = MessageFilter.builder()
+                .channels(factoidChannels)
+                .build();
+        keys.addAll(jdbc.queryForList("SELECT DISTINCT key FROM factoid", String.class));
     }
 
     @Override
-    public boolean onMessage(MessageEvent event) {
-        if (!factoidChannels.contains(event.getChannel()
-                .getName())) {
+    public boolean onMessage(MessageEvent event, ParsedMessage message) {
+        if (!factoidChannels.contains(message.getChannel())) {
             return false;
         }
 
-        Matcher matcher = PATTERN_FACTOID_DEFINITION.matcher(event.getMessage());
-        if (matcher.matches()) {
-            String key = matcher.group(1)
+        Optional<FactoidDefinition> definition = FactoidDefinition.parse(message.getMessage());
+        if (definition.isPresent()) {
+            String key = definition.get().key()
                     .toLowerCase(Locale.ROOT);
-            String verb = matcher.group(2);
-            String fact = matcher.group(3);
-
-            boolean also = false;
-            if (verb.endsWith("also")) {
-                verb = verb.split(" ")[0];
-                also = true;
-            }
+            String verb = definition.get().verb();
+            String fact = definition.get().fact();
 
-            if (keyExists(key, verb)) {
-                if (also) {
-                    appendFact(key, verb, fact);
-                }
+            if (definition.get().also()) {
+                upsertFact(key, verb, fact);
             } else {
                 insertFact(key, verb, fact);
             }
+            keys.add(key);
+            responsesByKey.remove(key);
             return false;
         }
 
-        String key = keyTrim(event.getMessage());
-        if (key.length() <= MAX_KEY_LENGTH && !key.contains(" ")) {
-            var factsByVerb = loadFactoidsByVerb(key);
-            if (!factsByVerb.isEmpty()) {
-                String response = factsByVerb.entrySet()
-                        .stream()
-                        .map(entry -> String.format("%s %s %s", key, entry.getKey(), entry.getValue()))
-                        .collect(Collectors.joining(", also, "));
-
+        String key = message.getNormalized();
+        if (key.length() <= MAX_KEY_LENGTH && keys.contains(key)) {
+            String response = responsesByKey.get(key);
+            if (response == null) {
+                response = renderResponse(key);
+                if (response != null) {
+                    responsesByKey.put(key, response);
+                }
+            }
+            if (response != null) {
                 event.respond(response);
             }
         }
         return false;
     }
 
-    private String keyTrim(String message) {
-        return message.strip()
-                .replaceAll("\\s*[,;.!?]+$", "")
-                .toLowerCase(Locale.ROOT);
-    }
-
-    private boolean keyExists(String key, String verb) {
-        return 0 != jdbc.queryForObject("SELECT COUNT(*) FROM factoid WHERE key = ? AND verb = ?", Integer.class, key, verb);
+    private String renderResponse(String key) {
+        var factsByVerb = loadFactoidsByVerb(key);
+        if (factsByVerb.isEmpty()) {
+            return null;
+        }
+        return factsByVerb.entrySet()
+                .stream()
+                .map(entry -> String.format("%s %s %s", key, entry.getKey(), entry.getValue()))
+                .collect(Collectors.joining(", also, "));
     }
 
-    private void appendFact(String key, String verb, String fact) {
-        jdbc.update("UPDATE factoid SET fact = fact || ' or ' || ? WHERE key = ? AND verb = ?", fact, key, verb);
+    /**
+     * Inserts the fact, or appends it to an existing fact with the same key and verb.
+     */
+    private void upsertFact(String key, String verb, String fact) {
+        jdbc.update("INSERT INTO factoid (key, verb, fact) VALUES (?, ?, ?) "
+                + "ON CONFLICT (key, verb) DO UPDATE SET fact = factoid.fact || ' or ' || EXCLUDED.fact", key, verb, fact);
     }
 
+    /**
+     * Inserts the fact unless there already is a fact with the same key and verb.
+     */
     private void insertFact(String key, String verb, String fact) {
-        jdbc.update("INSERT INTO factoid (key, verb, fact) VALUES (?, ?, ?)", key, verb, fact);
+        jdbc.update("INSERT INTO factoid (key, verb, fact) VALUES (?, ?, ?) ON CONFLICT (key, verb) DO NOTHING", key, verb, fact);
     }
 
     private boolean deleteFact(String key) {
+        keys.remove(key);
+        responsesByKey.remove(key);
         return 0 != jdbc.update("DELETE FROM factoid WHERE key = ?", key);
     }
 
@@ -143,6 +165,11 @@ public class FactoidHandler implements CommandHandler, MessageHandler {
         return Set.of(CMD_FORGET);
     }
 
+    @Override
+    public MessageFilter getMessageFilter() {
+        return messageFilter;
+    }
+
     @Override
     public boolean isOnlyTalkChannels() {
         return true;
@@ -2,6 +2,7 @@ package de.throughput.ircbot.handler;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import de.throughput.ircbot.HttpService;
 import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
@@ -10,7 +11,6 @@ import org.springframework.stereotype.Component;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.Map;
@@ -22,6 +22,12 @@ public class ForexCommandHandler implements CommandHandler {
 
     private static final Command CMD_FX = new Command("fx", "fx <CURRENCYPAIR> [YYYY-MM-DD]  - get currency exchange rates. example: !fx USDEUR 2024-12-15");
 
+    private final HttpService httpService;
+
+    public ForexCommandHandler(HttpService httpService) {
+        this.httpService = httpService;
+    }
+
     @Override
     public Set<Command> getCommands() {
         return Set.of(CMD_FX);
@@ -53,7 +59,7 @@ public class ForexCommandHandler implements CommandHandler {
                 .GET()
                 .build();
 
-        HttpClient.newHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        httpService.sendAsync(request, HttpResponse.BodyHandlers.ofString())
                 .thenApply(HttpResponse::body)
                 .thenAccept(body -> {
                     Map<String, Object> map = parseJson(body);
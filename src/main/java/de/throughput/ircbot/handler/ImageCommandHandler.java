@@ -2,7 +2,9 @@ package de.throughput.ircbot.handler;
 
 import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
+import de.throughput.ircbot.HttpService;
 import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,7 +15,6 @@ import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.file.Paths;
@@ -34,9 +35,14 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class ImageCommandHandler implements CommandHandler {
 
-    private static final Command CMD_IMAGE = new Command("image", "image <prompt> - generate an image from the given prompt");
+    /**
+     * Image generation is paid per image; all image commands share one budget.
+     */
+    private static final CommandCost IMAGE_COST = CommandCost.weight(5).global(20, Duration.ofHours(1));
+
+    private static final Command CMD_IMAGE = new Command("image", "image <prompt> - generate an image from the given prompt", IMAGE_COST);
     private static final Command CMD_AIIMAGE = new Command("aiimage",
-            "aiimage <prompt> - generate an image prompt from the given prompt using an LLM, then generate an image from the generated prompt");
+            "aiimage <prompt> - generate an image prompt from the given prompt using an LLM, then generate an image from the generated prompt", IMAGE_COST);
     private static final String API_URL = "https://api.together.xyz/v1/images/generations";
 
     private static final String AI_IMAGE_PROMPT_TEMPLATE = """
@@ -57,6 +63,7 @@ public class ImageCommandHandler implements CommandHandler {
     private static final int MAX_QUEUE_SIZE = 5;
 
     private final SimpleAiService simpleAiService;
+    private final HttpService httpService;
     private final String apiKey;
     private final String imageSaveDirectory;
     private final String imageUrlPrefix;
@@ -72,12 +79,14 @@ public class ImageCommandHandler implements CommandHandler {
 
     public ImageCommandHandler(
             SimpleAiService simpleAiService,
+            HttpService httpService,
             @Value("${together.apiKey}") String apiKey,
             @Value("${image.saveDirectory}") String imageSaveDirectory,
             @Value("${image.urlPrefix}") String imageUrlPrefix,
             @Value("${image.model.cooldown.seconds:100}") long cooldownSeconds,
             @Value("${image.model.steps:6}") int imageModelSteps) {
         this.simpleAiService = simpleAiService;
+        this.httpService = httpService;
         this.apiKey = apiKey;
         this.imageSaveDirectory = imageSaveDirectory;
         this.imageUrlPrefix = imageUrlPrefix;
@@ -304,7 +313,7 @@ public class ImageCommandHandler implements CommandHandler {
         final String fImageTitle = title;
         final String fOriginalPrompt = prompt;
 
-        HttpClient.newHttpClient()
+        httpService
                 .sendAsync(request, HttpResponse.BodyHandlers.ofString())
                 .thenAccept(response -> processResponse(command, response, fImagePrompt, fImageTitle, fOriginalPrompt))
                 .exceptionally(e -> {
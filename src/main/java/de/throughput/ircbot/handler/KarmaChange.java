@@ -0,0 +1,66 @@
+package de.throughput.ircbot.handler;
+
+import java.util.Optional;
+
+/**
+ * A karma change like "++something" or "something--".
+ * <p>
+ * Parsed in a single pass over the message, with the same results as the former regular expressions
+ * {@code ^\s*(\+\+|\-\-)\s*(.*{1,254}\S)\s*$} and {@code ^\s*(.*{1,254}\S)\s*(\+\+|\-\-)\s*$}, which backtracked
+ * heavily on long lines with many spaces. The prefix form takes precedence.
+ *
+ * @param key   the key, as written
+ * @param delta 1 or -1
+ */
+record KarmaChange(String key, int delta) {
+
+    /**
+     * @param message the message
+     * @return the change, or empty if the message is not a karma change
+     */
+    static Optional<KarmaChange> parse(String message) {
+        int start = Whitespace.skip(message, 0);
+        int end = Whitespace.trimEnd(message, start, message.length());
+        if (end - start < 2) {
+            return Optional.empty();
+        }
+        int delta = delta(message, start);
+        if (delta != 0) {
+            Optional<String> key = key(message, start + 2, end);
+            if (key.isPresent()) {
+                return Optional.of(new KarmaChange(key.get(), delta));
+            }
+        }
+        int postfixDelta = delta(message, end - 2);
+        if (postfixDelta != 0) {
+            return key(message, start, end - 2).map(key -> new KarmaChange(key, postfixDelta));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return the delta of the operator at the index, or 0 if there is none
+     */
+    private static int delta(String message, int index) {
+        if (message.startsWith("++", index)) {
+            return 1;
+        }
+        if (message.startsWith("--", index)) {
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the key within the range, without surrounding whitespace
+     */
+    private static Optional<String> key(String message, int from, int end) {
+        int keyStart = Whitespace.skip(message, from);
+        int keyEnd = Whitespace.trimEnd(message, keyStart, end);
+        // the last character of the key only has to be non-whitespace
+        if (keyStart >= keyEnd || Whitespace.containsLineTerminator(message, keyStart, keyEnd - 1)) {
+            return Optional.empty();
+        }
+        return Optional.of(message.substring(keyStart, keyEnd));
+    }
+}
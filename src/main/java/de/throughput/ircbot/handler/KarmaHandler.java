@@ -1,8 +1,6 @@
 package de.throughput.ircbot.handler;
 
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.pircbotx.hooks.events.MessageEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
@@ -14,6 +12,7 @@ import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import de.throughput.ircbot.api.MessageHandler;
+import de.throughput.ircbot.api.ParsedMessage;
 
 /**
  * Command- and message handler which updates and retrieves karma.
@@ -27,20 +26,6 @@ public class KarmaHandler implements CommandHandler, MessageHandler {
 
     private static final Command CMD_KARMA = new Command("karma", "Usage: !karma <nick or thing> - shows the recorded karma for <nick or thing>");
 
-    /**
-     * Matches any message starting in ++ or --, ignoring pending or trailing white space;
-     * match group 1 is the operator, group 2 the key.
-     * Key must be 2 to 255 characters long.
-     */
-    private static final Pattern PATTERN_KARMA_MESSAGE_PREFIX = Pattern.compile("^\\s*(\\+\\+|\\-\\-)\\s*(.*{1,254}\\S)\\s*$");
-
-    /**
-     * Matches any message ending in ++ or --, ignoring pending or trailing white space;
-     * match group 1 is the key, group 2 the operator.
-     * Key must be 2 to 255 characters long.
-     */
-    private static final Pattern PATTERN_KARMA_MESSAGE_POSTFIX = Pattern.compile("^\\s*(.*{1,254}\\S)\\s*(\\+\\+|\\-\\-)\\s*$");
-
     private final JdbcTemplate jdbc;
 
     @Autowired
@@ -81,20 +66,12 @@ public class KarmaHandler implements CommandHandler, MessageHandler {
 
     @Override
     @Transactional
-    public boolean onMessage(MessageEvent event) {
-        Matcher matcher = PATTERN_KARMA_MESSAGE_PREFIX.matcher(event.getMessage());
-        if (matcher.matches()) {
-            String key = matcher.group(2);
-            upsert(key, "++".equals(matcher.group(1)) ? 1 : -1);
-            event.respond(karma(key));
-            return false;
-        }
-        matcher = PATTERN_KARMA_MESSAGE_POSTFIX.matcher(event.getMessage());
-        if (matcher.matches()) {
-            String key = matcher.group(1);
-            upsert(key, "++".equals(matcher.group(2)) ? 1 : -1);
-            event.respond(karma(key));
-        }
+    public boolean onMessage(MessageEvent event, ParsedMessage message) {
+        KarmaChange.parse(message.getMessage())
+                .ifPresent(change -> {
+                    upsert(change.key(), change.delta());
+                    event.respond(karma(change.key()));
+                });
         return false;
     }
 
@@ -7,6 +7,7 @@ import com.openai.models.chat.completions.ChatCompletionCreateParams;
 import com.openai.models.chat.completions.ChatCompletionMessageParam;
 import com.openai.models.chat.completions.ChatCompletionUserMessageParam;
 import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 
@@ -31,7 +33,8 @@ public class LagerfeldAiCommandHandler implements CommandHandler {
     private static final ChatModel MODEL_GPT_3_5_TURBO = ChatModel.GPT_3_5_TURBO;
     private static final int MAX_TOKENS = 100;
 
-    private static final Command CMD_AILAGERFELD = new Command("lagerfeld", "lagerfeld <text> - responds with an AI-generated Lagerfeld quote.");
+    private static final Command CMD_AILAGERFELD = new Command("lagerfeld", "lagerfeld <text> - responds with an AI-generated Lagerfeld quote.",
+            CommandCost.weight(3).perChannel(20, Duration.ofHours(1)));
 
     public static final String PROMPT_TEMPLATE =
             """
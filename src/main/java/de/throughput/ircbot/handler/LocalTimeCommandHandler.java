@@ -1,12 +1,12 @@
 package de.throughput.ircbot.handler;
 
 import com.google.gson.Gson;
+import de.throughput.ircbot.HttpService;
 import de.throughput.ircbot.Util;
 import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.DateTimeException;
@@ -54,14 +54,15 @@ public class LocalTimeCommandHandler implements CommandHandler {
 
     private final String apiKey;
 
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final HttpService httpService;
 
     private final Gson gson = new Gson();
 
     private final TimeZoneEngine timeZoneEngine;
 
-    public LocalTimeCommandHandler(@Value("${openweathermap.apiKey}") String apiKey) {
+    public LocalTimeCommandHandler(@Value("${openweathermap.apiKey}") String apiKey, HttpService httpService) {
         this.apiKey = apiKey;
+        this.httpService = httpService;
         this.timeZoneEngine = TimeZoneEngine.initialize();
     }
 
@@ -144,7 +145,7 @@ public class LocalTimeCommandHandler implements CommandHandler {
                 .GET()
                 .build();
 
-        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        return httpService.sendAsync(request, HttpResponse.BodyHandlers.ofString())
                 .thenApply(this::processGeocodingResponse)
                 .exceptionally(ex -> {
                     LOG.warn("Failed to fetch geocoding data for '{}': {}", location, ex.getMessage());
@@ -1,9 +1,13 @@
 package de.throughput.ircbot.handler;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.pircbotx.hooks.events.MessageEvent;
 import org.springframework.stereotype.Component;
 
+import de.throughput.ircbot.api.MessageFilter;
 import de.throughput.ircbot.api.MessageHandler;
+import de.throughput.ircbot.api.ParsedMessage;
 
 /**
  * Nein-Doch message handler.
@@ -15,30 +19,33 @@ public class NeinDochMessageHandler implements MessageHandler {
 
     private static final int MESSAGE_DELAY = 1600;
 
+    private static final MessageFilter MESSAGE_FILTER = MessageFilter.builder()
+            .exact("nein!", "NEIN!", "Nein!")
+            .build();
+
     @Override
-    public boolean onMessage(MessageEvent event) {
-        try {
-            String message = event.getMessage()
-                    .trim();
-            String answer = switch (message) {
-                case "nein!" -> "doch!";
-                case "NEIN!" -> "DOCH!";
-                case "Nein!" -> "Doch!";
-                default -> null;
-            };
-            if (answer != null) {
-                Thread.sleep(MESSAGE_DELAY);
-                event.getChannel()
-                        .send()
-                        .message(answer);
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread()
-                    .interrupt();
+    public boolean onMessage(MessageEvent event, ParsedMessage message) {
+        String answer = switch (message.getTrimmed()) {
+            case "nein!" -> "doch!";
+            case "NEIN!" -> "DOCH!";
+            case "Nein!" -> "Doch!";
+            default -> null;
+        };
+        if (answer != null) {
+            // don't hold up the channel's other events while waiting
+            CompletableFuture.runAsync(() -> event.getChannel()
+                            .send()
+                            .message(answer),
+                    CompletableFuture.delayedExecutor(MESSAGE_DELAY, TimeUnit.MILLISECONDS));
         }
         return false;
     }
 
+    @Override
+    public MessageFilter getMessageFilter() {
+        return MESSAGE_FILTER;
+    }
+
     @Override
     public boolean isOnlyTalkChannels() {
         return true;
@@ -1,16 +1,19 @@
 package de.throughput.ircbot.handler;
 
 import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Set;
 
 @Component
 public class NewsCommandHandler implements CommandHandler {
 
-    private static final Command CMD_NEWS = new Command("news", "news [topic] - show a short summary of current news, optionally focusing on a topic");
+    private static final Command CMD_NEWS = new Command("news", "news [topic] - show a short summary of current news, optionally focusing on a topic",
+            CommandCost.weight(5).perChannel(10, Duration.ofHours(1)));
     private static final String NEWS_PROMPT = """
         The following is a dump of multiple news feeds of various sources.
         Read it, and give me a short, 300-character summary of what's going on in the world today:
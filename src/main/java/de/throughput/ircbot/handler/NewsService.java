@@ -1,6 +1,7 @@
 package de.throughput.ircbot.handler;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.throughput.ircbot.HttpService;
 import com.rometools.rome.feed.synd.SyndEntry;
 import com.rometools.rome.feed.synd.SyndFeed;
 import com.rometools.rome.io.FeedException;
@@ -13,18 +14,27 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
-import java.net.URL;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 @Component
 public class NewsService {
 
+    private static final int MAX_REDIRECTS = 5;
+
     private Path newsCachePath;
+    private final HttpService httpService;
 
-    public NewsService(@Value("${news.cache.path}") Path newsCachePath) {
+    public NewsService(@Value("${news.cache.path}") Path newsCachePath, HttpService httpService) {
         this.newsCachePath = newsCachePath;
+        this.httpService = httpService;
     }
 
     public synchronized String getNews() {
@@ -53,14 +63,13 @@ public class NewsService {
         }
     }
 
-    private static void getNews(PrintStream out) throws IOException, FeedException {
+    private void getNews(PrintStream out) throws IOException, FeedException {
         FeedsConfig feedsConfig = getFeedsConfig();
         for (FeedEntry feed : feedsConfig.getFeeds()) {
             out.println("================================");
             out.println(feed.getTitle() + " - " + feed.getPolitical_circle() + ":");
 
-            SyndFeedInput input = new SyndFeedInput();
-            SyndFeed syndFeed = input.build(new XmlReader(new URL(feed.getFeed_url())));
+            SyndFeed syndFeed = readFeed(feed.getFeed_url());
 
             for (SyndEntry entry : syndFeed.getEntries()) {
                 out.print(stripHtmlTags(entry.getTitle()));
@@ -72,6 +81,42 @@ public class NewsService {
         }
     }
 
+    /**
+     * Downloads and parses a feed, following redirects.
+     *
+     * @param feedUrl URL of the feed
+     * @return the feed
+     */
+    private SyndFeed readFeed(String feedUrl) throws IOException, FeedException {
+        URI uri = URI.create(feedUrl);
+        for (int redirects = 0; ; redirects++) {
+            HttpResponse<InputStream> response = fetch(uri);
+            try (InputStream body = response.body()) {
+                Optional<String> location = response.headers().firstValue("Location");
+                if (response.statusCode() / 100 == 3 && location.isPresent() && redirects < MAX_REDIRECTS) {
+                    uri = uri.resolve(location.get());
+                    continue;
+                }
+                if (response.statusCode() != 200) {
+                    throw new IOException("Feed " + uri + " answered with status " + response.statusCode());
+                }
+                String contentType = response.headers().firstValue("Content-Type").orElse(null);
+                return new SyndFeedInput().build(new XmlReader(body, contentType));
+            }
+        }
+    }
+
+    private HttpResponse<InputStream> fetch(URI uri) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .GET()
+                .build();
+        try {
+            return httpService.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()).join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to fetch feed " + uri, e.getCause());
+        }
+    }
+
     private static String stripHtmlTags(String html) {
         if (html == null || html.isEmpty()) {
             return "";
@@ -9,10 +9,14 @@ import com.openai.models.chat.completions.ChatCompletionMessage;
 import com.openai.models.chat.completions.ChatCompletionMessageParam;
 import com.openai.models.chat.completions.ChatCompletionSystemMessageParam;
 import com.openai.models.chat.completions.ChatCompletionUserMessageParam;
+import de.throughput.ircbot.CommandRateLimiter;
 import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
+import de.throughput.ircbot.api.MessageFilter;
 import de.throughput.ircbot.api.MessageHandler;
+import de.throughput.ircbot.api.ParsedMessage;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.pircbotx.hooks.events.MessageEvent;
@@ -30,6 +34,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Date;
@@ -62,9 +67,20 @@ public class OpenAiChatMessageHandler implements MessageHandler, CommandHandler
     private static final int MAX_IRC_MESSAGE_LENGTH = 420;
     private static final String SHORT_ANSWER_HINT = " (Antwort auf 200 Zeichen begrenzen)";
 
+    /**
+     * Cost of a chat response, charged like a command named "chat".
+     */
+    private static final CommandCost CHAT_COST = CommandCost.weight(3)
+            .perChannel(30, Duration.ofHours(1));
+
+    private static final MessageFilter MESSAGE_FILTER = MessageFilter.builder()
+            .mentionsBot()
+            .build();
+
     private final Map<String, LinkedList<TimedChatMessage>> contextMessagesPerChannel = new ConcurrentHashMap<>();
 
     private final OpenAIClient openAiClient;
+    private final CommandRateLimiter commandRateLimiter;
     private final Path systemPromptPath;
     private String systemPrompt;
     private Random random;
@@ -72,8 +88,10 @@ public class OpenAiChatMessageHandler implements MessageHandler, CommandHandler
 
     public OpenAiChatMessageHandler(
             OpenAIClient openAiClient,
+            CommandRateLimiter commandRateLimiter,
             @Value("${openai.systemPrompt.path}") Path systemPromptPath) {
         this.openAiClient = openAiClient;
+        this.commandRateLimiter = commandRateLimiter;
         this.systemPromptPath = systemPromptPath;
         readSystemPromptFromFile();
         random = new Random(System.currentTimeMillis());
@@ -87,13 +105,13 @@ public class OpenAiChatMessageHandler implements MessageHandler, CommandHandler
     }
 
     @Override
-    public boolean onMessage(MessageEvent event) {
-        String message = event.getMessage().trim();
-        String botNick = event.getBot().getNick();
-        if (message.startsWith(botNick + ":") || message.startsWith(botNick + ",")) {
-            message = message.substring(event.getBot().getNick().length() + 1).trim();
-
-            generateResponse(event, message);
+    public boolean onMessage(MessageEvent event, ParsedMessage message) {
+        if (message.isAddressedToBot()) {
+            if (!commandRateLimiter.tryAcquire(message.getNick(), message.getChannel(), "chat", CHAT_COST)) {
+                event.respond("I need a break, talk to me later.");
+                return true;
+            }
+            generateResponse(event, message.getAddressedText());
             return true;
         }
         return false;
@@ -249,6 +267,11 @@ public class OpenAiChatMessageHandler implements MessageHandler, CommandHandler
         }
     }
 
+    @Override
+    public MessageFilter getMessageFilter() {
+        return MESSAGE_FILTER;
+    }
+
     @Override
     public boolean isOnlyTalkChannels() {
         return true;
@@ -1,11 +1,13 @@
 package de.throughput.ircbot.handler;
 
 import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -16,7 +18,7 @@ import java.util.stream.Collectors;
 public class PictureCommandHandler implements CommandHandler {
 
     private static final Command CMD_PICTURE = new Command("picture",
-            "picture <word> - generate an image from what the bot knows about a factoid");
+            "picture <word> - generate an image from what the bot knows about a factoid", CommandCost.weight(5).global(20, Duration.ofHours(1)));
     private static final String PICTURE_PROMPT_TEMPLATE = """
             You write high-quality prompts for FLUX.1-schnell.
 
@@ -4,6 +4,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Random;
 import java.util.Set;
 import org.pircbotx.hooks.events.MessageEvent;
@@ -17,6 +18,7 @@ import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import de.throughput.ircbot.api.MessageHandler;
+import de.throughput.ircbot.api.ParsedMessage;
 
 /**
  * Quote command- and message handler.
@@ -40,9 +42,11 @@ public class QuoteCommandHandler implements CommandHandler, MessageHandler {
 
     private static final int ONE_MINUTE = 60000;
     private static final int ONE_HOUR = 3600000;
+    private static final int MAX_LOOKUP_ATTEMPTS = 3;
 
     private final JdbcTemplate jdbc;
     private final Map<String, QuoteMessage> lastMessages;
+    private final QuoteIndex quoteIndex;
     private final Random rnd;
 
     private long lastEvictionTimestamp;
@@ -52,6 +56,8 @@ public class QuoteCommandHandler implements CommandHandler, MessageHandler {
         this.jdbc = jdbc;
         this.rnd = new Random();
         this.lastMessages = Collections.synchronizedMap(new HashMap<>());
+        this.quoteIndex = new QuoteIndex();
+        quoteIndex.load(jdbc);
     }
 
     @Override
@@ -85,8 +91,8 @@ public class QuoteCommandHandler implements CommandHandler, MessageHandler {
     }
 
     @Override
-    public boolean onMessage(MessageEvent event) {
-        storeMessage(event);
+    public boolean onMessage(MessageEvent event, ParsedMessage message) {
+        storeMessage(message);
         return false;
     }
 
@@ -142,13 +148,12 @@ public class QuoteCommandHandler implements CommandHandler, MessageHandler {
     /**
      * Stores the message in the cache.
      *
-     * @param event message event
+     * @param message the message
      */
-    private void storeMessage(MessageEvent event) {
+    private void storeMessage(ParsedMessage message) {
         QuoteMessage msg = new QuoteMessage(
-                event.getChannelSource(), event.getUser()
-                .getNick(),
-                System.currentTimeMillis(), event.getMessage());
+                message.getChannel(), message.getNick(),
+                System.currentTimeMillis(), message.getMessage());
 
         lastMessages.put(msg.getKey(), msg);
     }
@@ -159,8 +164,9 @@ public class QuoteCommandHandler implements CommandHandler, MessageHandler {
      * @param message the message
      */
     private void storeQuote(QuoteMessage message) {
-        jdbc.update("INSERT INTO quote (nick, channel, message) VALUES (?, ?, ?)",
-                message.getNick(), message.getChannel(), message.getMessage());
+        Integer id = jdbc.queryForObject("INSERT INTO quote (nick, channel, message) VALUES (?, ?, ?) RETURNING id",
+                Integer.class, message.getNick(), message.getChannel(), message.getMessage());
+        quoteIndex.add(id, message.getChannel(), message.getNick());
     }
 
     /**
@@ -171,16 +177,18 @@ public class QuoteCommandHandler implements CommandHandler, MessageHandler {
      * @return the quote, if any
      */
     private Optional<QuoteMessage> lookupRandomQuote(String channel, String nick) {
-        try {
-            return Optional.of(jdbc.queryForObject(
-                    "SELECT EXTRACT(EPOCH FROM timestamp) * 1000, message "
-                            + "FROM quote "
-                            + "WHERE channel = ? AND nick = ? ORDER BY RANDOM() LIMIT 1",
-                    (rs, rowNum) -> new QuoteMessage(channel, nick, rs.getLong(1), rs.getString(2)),
-                    channel, nick));
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
+        for (int attempt = 0; attempt < MAX_LOOKUP_ATTEMPTS; attempt++) {
+            OptionalInt id = quoteIndex.random(channel, nick);
+            if (id.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<QuoteMessage> quote = lookupQuote(channel, id.getAsInt());
+            if (quote.isPresent()) {
+                return quote;
+            }
+            quoteIndex.remove(id.getAsInt(), channel, nick);
         }
+        return Optional.empty();
     }
 
     /**
@@ -190,13 +198,35 @@ public class QuoteCommandHandler implements CommandHandler, MessageHandler {
      * @return quote or null if none found
      */
     private Optional<QuoteMessage> lookupRandomQuote(String channel) {
+        for (int attempt = 0; attempt < MAX_LOOKUP_ATTEMPTS; attempt++) {
+            OptionalInt id = quoteIndex.random(channel);
+            if (id.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<QuoteMessage> quote = lookupQuote(channel, id.getAsInt());
+            if (quote.isPresent()) {
+                return quote;
+            }
+            quoteIndex.remove(id.getAsInt(), channel, null);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Reads a quote by id.
+     *
+     * @param channel channel
+     * @param id      quote id
+     * @return the quote, if it still exists
+     */
+    private Optional<QuoteMessage> lookupQuote(String channel, int id) {
         try {
             return Optional.of(jdbc.queryForObject(
                     "SELECT EXTRACT(EPOCH FROM timestamp) * 1000, nick, message "
                             + "FROM quote "
-                            + "WHERE channel = ? ORDER BY RANDOM() LIMIT 1",
+                            + "WHERE id = ?",
                     (rs, rowNum) -> new QuoteMessage(channel, rs.getString(2), rs.getLong(1), rs.getString(3)),
-                    channel));
+                    id));
         } catch (EmptyResultDataAccessException e) {
             return Optional.empty();
         }
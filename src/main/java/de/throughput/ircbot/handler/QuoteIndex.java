@@ -0,0 +1,108 @@
+package de.throughput.ircbot.handler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * In-memory index of quote ids per channel and per channel and nick.
+ * <p>
+ * Allows picking a random quote in constant time, without letting the database sort all matching rows.
+ */
+final class QuoteIndex {
+
+    private final Map<String, IdList> idsByChannel = new HashMap<>();
+    private final Map<String, IdList> idsByChannelAndNick = new HashMap<>();
+
+    /**
+     * Loads the ids of all quotes.
+     *
+     * @param jdbc JDBC template
+     */
+    synchronized void load(JdbcTemplate jdbc) {
+        idsByChannel.clear();
+        idsByChannelAndNick.clear();
+        jdbc.query("SELECT id, channel, nick FROM quote",
+                (RowCallbackHandler) rs -> add(rs.getInt(1), rs.getString(2), rs.getString(3)));
+    }
+
+    synchronized void add(int id, String channel, String nick) {
+        idsByChannel.computeIfAbsent(channel, k -> new IdList()).add(id);
+        idsByChannelAndNick.computeIfAbsent(key(channel, nick), k -> new IdList()).add(id);
+    }
+
+    /**
+     * Removes a quote which no longer exists in the database.
+     *
+     * @param nick nick, or {@code null} if unknown; the id then stays in the nick's list until it is picked there
+     */
+    synchronized void remove(int id, String channel, String nick) {
+        remove(idsByChannel, channel, id);
+        if (nick != null) {
+            remove(idsByChannelAndNick, key(channel, nick), id);
+        }
+    }
+
+    synchronized OptionalInt random(String channel) {
+        return random(idsByChannel.get(channel));
+    }
+
+    synchronized OptionalInt random(String channel, String nick) {
+        return random(idsByChannelAndNick.get(key(channel, nick)));
+    }
+
+    /**
+     * @return number of channels and of channel and nick pairs with quotes
+     */
+    synchronized int getKeyCount() {
+        return idsByChannel.size() + idsByChannelAndNick.size();
+    }
+
+    private static OptionalInt random(IdList ids) {
+        if (ids == null || ids.size == 0) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(ids.ids[ThreadLocalRandom.current().nextInt(ids.size)]);
+    }
+
+    private static void remove(Map<String, IdList> idsByKey, String key, int id) {
+        IdList ids = idsByKey.get(key);
+        if (ids != null && ids.remove(id) && ids.size == 0) {
+            idsByKey.remove(key);
+        }
+    }
+
+    private static String key(String channel, String nick) {
+        return channel + ":" + nick;
+    }
+
+    /**
+     * Unordered list of primitive ids.
+     */
+    private static final class IdList {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
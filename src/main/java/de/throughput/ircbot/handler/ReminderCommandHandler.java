@@ -1,18 +1,27 @@
 package de.throughput.ircbot.handler;
 
+import de.throughput.ircbot.PresenceIndex;
+import de.throughput.ircbot.SerialListener;
+import de.throughput.ircbot.api.CaseMapping;
 import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
+import jakarta.annotation.PreDestroy;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import org.pircbotx.PircBotX;
+import org.pircbotx.User;
+import org.pircbotx.hooks.ListenerAdapter;
+import org.pircbotx.hooks.events.JoinEvent;
+import org.pircbotx.hooks.events.MessageEvent;
+import org.pircbotx.hooks.events.UserListEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
@@ -20,17 +29,29 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Reminder command handler.
  * !remindme <when>: <text> - reminds the user of <text> at a specified time.
+ * <p>
+ * Pending reminders are held in memory and scheduled for the start of their day. A due reminder is delivered
+ * right away if the user is on the channel; otherwise it is delivered when the user joins or speaks.
+ * <p>
+ * Whoever removes a due reminder from {@link #dueByNick} delivers it, so it's sent only once. It is deleted from
+ * the database before it's sent; if the delete fails, the reminder stays due.
  */
 @Component
-public class ReminderCommandHandler implements CommandHandler {
+public class ReminderCommandHandler extends ListenerAdapter implements CommandHandler, SerialListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReminderCommandHandler.class);
 
     private static final Command CMD_REMINDME = new Command("remindme",
             "remindme <when>: <text> - set a reminder. <when> can be a date (YYYY-MM-DD) or a duration (e.g., '1 year', '3 days'). "
@@ -39,11 +60,39 @@ public class ReminderCommandHandler implements CommandHandler {
 
     private final JdbcTemplate jdbc;
     private final PircBotX bot;
+    private final PresenceIndex presenceIndex;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Due reminders not yet delivered, by casefolded nick.
+     */
+    private final Map<String, Set<Reminder>> dueByNick = new ConcurrentHashMap<>();
 
     @Autowired
-    public ReminderCommandHandler(JdbcTemplate jdbc, @Lazy PircBotX bot) {
+    public ReminderCommandHandler(JdbcTemplate jdbc, @Lazy PircBotX bot, PresenceIndex presenceIndex) {
+        this(jdbc, bot, presenceIndex, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("reminder-scheduler");
+            return thread;
+        }));
+    }
+
+    ReminderCommandHandler(JdbcTemplate jdbc, PircBotX bot, PresenceIndex presenceIndex, ScheduledExecutorService scheduler) {
         this.jdbc = jdbc;
         this.bot = bot;
+        this.presenceIndex = presenceIndex;
+        this.scheduler = scheduler;
+        LocalDate today = LocalDate.now();
+        jdbc.query("SELECT * FROM reminder", reminderRowMapper())
+                .forEach(reminder -> {
+                    if (reminder.getOndate().isAfter(today)) {
+                        schedule(reminder);
+                    } else {
+                        // delivered once the bot has joined and sees the user
+                        addDue(reminder);
+                    }
+                });
     }
 
     @Override
@@ -70,7 +119,7 @@ public class ReminderCommandHandler implements CommandHandler {
 
             try {
                 LocalDate date = parseWhenSpecification(when);
-                storeReminder(command.getEvent().getChannel().getName(), command.getEvent().getUser().getNick(), date, when, message);
+                schedule(storeReminder(command.getEvent().getChannel().getName(), command.getEvent().getUser().getNick(), date, when, message));
                 command.respond("OK, I will remind you on " + date.format(DateTimeFormatter.ISO_LOCAL_DATE));
             } catch (DateTimeParseException e) {
                 command.respond("Could not parse the date. Please use the format 'yyyy-MM-dd' or durations like '1 year', '3 days'.");
@@ -105,35 +154,96 @@ public class ReminderCommandHandler implements CommandHandler {
     }
 
     /**
-     * Scheduled task to check for reminders.
+     * Schedules the reminder for the start of its day.
      */
-    @Scheduled(fixedDelay = 600000) // every 10 minutes
-    public void checkReminders() {
-        LocalDate today = LocalDate.now();
-        List<Reminder> reminders = jdbc.query("SELECT * FROM reminder WHERE ondate <= ?", new Object[]{today}, reminderRowMapper());
-
-        reminders.forEach(reminder -> {
-            if (bot.getUserChannelDao().containsChannel(reminder.getChannel())) {
-                bot.getUserChannelDao().getChannel(reminder.getChannel()).getUsers().stream()
-                        .filter(user -> user.getNick().equals(reminder.getNick()))
-                        .findFirst()
-                        .ifPresent(user -> {
-                            String message = String.format("%s: you asked me on %s to remind you today of this: %s. You're welcome.",
-                                    reminder.getNick(), reminder.getTimestamp().toLocalDate(), reminder.getMessage());
-                            bot.send().message(reminder.getChannel(), message);
-                            deleteReminder(reminder.getId());
-                        });
+    private void schedule(Reminder reminder) {
+        long delayMillis = reminder.getOndate().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                - System.currentTimeMillis();
+        scheduler.schedule(() -> onDue(reminder), Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    }
+
+    private void onDue(Reminder reminder) {
+        addDue(reminder);
+        try {
+            if (presenceIndex.isOnChannel(reminder.getNick(), reminder.getChannel())) {
+                deliverDue(reminder.getNick(), reminder.getChannel());
             }
+        } catch (RuntimeException e) {
+            LOG.error("failed to deliver reminder {}", reminder.getId(), e);
+        }
+    }
+
+    private void addDue(Reminder reminder) {
+        dueByNick.compute(CaseMapping.caseFold(reminder.getNick()), (nick, reminders) -> {
+            Set<Reminder> due = reminders == null ? ConcurrentHashMap.newKeySet() : reminders;
+            due.add(reminder);
+            return due;
         });
     }
 
-    private void storeReminder(String channel, String nick, LocalDate ondate, String whenspec, String message) {
-        jdbc.update("INSERT INTO reminder (nick, channel, ondate, whenspec, message) VALUES (?, ?, ?, ?, ?)",
-                nick, channel, ondate, whenspec, message);
+    /**
+     * Delivers the due reminders of the user for the channel, if any.
+     */
+    private void deliverDue(String nick, String channel) {
+        String key = CaseMapping.caseFold(nick);
+        Set<Reminder> due = dueByNick.get(key);
+        if (due == null) {
+            return;
+        }
+        for (Reminder reminder : due) {
+            // only one caller gets to remove the reminder
+            if (reminder.getChannel().equalsIgnoreCase(channel) && due.remove(reminder)) {
+                deliver(reminder);
+            }
+        }
+        dueByNick.computeIfPresent(key, (k, reminders) -> reminders.isEmpty() ? null : reminders);
+    }
+
+    private void deliver(Reminder reminder) {
+        try {
+            jdbc.update("DELETE FROM reminder WHERE id = ?", reminder.getId());
+        } catch (DataAccessException e) {
+            LOG.error("failed to delete reminder {}, will retry", reminder.getId(), e);
+            addDue(reminder);
+            return;
+        }
+        String message = String.format("%s: you asked me on %s to remind you today of this: %s. You're welcome.",
+                reminder.getNick(), reminder.getTimestamp().toLocalDate(), reminder.getMessage());
+        bot.send().message(reminder.getChannel(), message);
+    }
+
+    @Override
+    public void onJoin(JoinEvent event) {
+        if (event.getUser() != null && !event.getUser().getNick().equals(event.getBot().getNick())) {
+            deliverDue(event.getUser().getNick(), event.getChannel().getName());
+        }
+    }
+
+    @Override
+    public void onUserList(UserListEvent event) {
+        if (!dueByNick.isEmpty()) {
+            for (User user : event.getUsers()) {
+                deliverDue(user.getNick(), event.getChannel().getName());
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(MessageEvent event) {
+        if (!dueByNick.isEmpty()) {
+            deliverDue(event.getUser().getNick(), event.getChannel().getName());
+        }
+    }
+
+    private Reminder storeReminder(String channel, String nick, LocalDate ondate, String whenspec, String message) {
+        Integer id = jdbc.queryForObject("INSERT INTO reminder (nick, channel, ondate, whenspec, message) VALUES (?, ?, ?, ?, ?) RETURNING id",
+                Integer.class, nick, channel, ondate, whenspec, message);
+        return new Reminder(id, LocalDateTime.now(), nick, channel, ondate, whenspec, message);
     }
 
-    private void deleteReminder(int id) {
-        jdbc.update("DELETE FROM reminder WHERE id = ?", id);
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
     }
 
     private RowMapper<Reminder> reminderRowMapper() {
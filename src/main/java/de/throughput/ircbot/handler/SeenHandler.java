@@ -1,16 +1,25 @@
 package de.throughput.ircbot.handler;
 
+import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.PreDestroy;
 import org.pircbotx.hooks.events.MessageEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,20 +27,30 @@ import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import de.throughput.ircbot.api.MessageHandler;
+import de.throughput.ircbot.api.ParsedMessage;
 
 /**
  * Command- and message handler which updates and retrieves last seen information.
  * <p>
- * Every user's last message is recorded in the database.
+ * Every user's last message is recorded in the database. Messages are buffered and written in batches,
+ * keeping only the latest message per channel and nick; lookups check the buffer first. After a failed write,
+ * the buffer is only written by the scheduled flush until it succeeds, so messages don't wait for the database.
  * <p>
  * If a user says "!seen nick", the bot will inform when nick was last seen, and what they said.
  */
 @Component
 public class SeenHandler implements CommandHandler, MessageHandler {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SeenHandler.class);
+
     private static final Command CMD_SEEN = new Command("seen", "Usage: !seen <nick>");
 
+    private static final int FLUSH_THRESHOLD = 100;
+
     private final JdbcTemplate jdbc;
+    private final Map<SeenKey, QuoteMessage> pending = new ConcurrentHashMap<>();
+    private volatile long lastFlushMillis;
+    private volatile boolean flushFailed;
 
     @Autowired
     public SeenHandler(JdbcTemplate jdbc) {
@@ -39,12 +58,15 @@ public class SeenHandler implements CommandHandler, MessageHandler {
     }
 
     @Override
-    @Transactional
-    public boolean onMessage(MessageEvent event) {
-        upsert(event.getChannelSource()
-                .toLowerCase(), event.getUser()
-                .getNick()
-                .toLowerCase(), event.getMessage());
+    public boolean onMessage(MessageEvent event, ParsedMessage message) {
+        String channel = message.getChannel()
+                .toLowerCase();
+        String nick = message.getNick()
+                .toLowerCase();
+        pending.put(new SeenKey(channel, nick), new QuoteMessage(channel, nick, System.currentTimeMillis(), message.getMessage()));
+        if (pending.size() >= FLUSH_THRESHOLD && !flushFailed) {
+            flush();
+        }
         return false;
     }
 
@@ -56,7 +78,8 @@ public class SeenHandler implements CommandHandler, MessageHandler {
                     .map(String::toLowerCase)
                     .ifPresentOrElse(
                             nick -> command.respond(seen(command.getEvent()
-                                    .getChannelSource(), nick)),
+                                    .getChannelSource()
+                                    .toLowerCase(), nick)),
                             () -> command.respond(CMD_SEEN.getUsage()));
             return true;
         }
@@ -136,13 +159,17 @@ public class SeenHandler implements CommandHandler, MessageHandler {
     }
 
     /**
-     * Reads the last seen message from the database.
+     * Reads the last seen message from the buffer or the database.
      *
      * @param channel channel
      * @param nick    nick
      * @return quote or null if none found
      */
     private Optional<QuoteMessage> lookupSeenQuote(String channel, String nick) {
+        QuoteMessage buffered = pending.get(new SeenKey(channel, nick));
+        if (buffered != null) {
+            return Optional.of(buffered);
+        }
         try {
             return Optional.of(jdbc.queryForObject(
                     "SELECT EXTRACT(EPOCH FROM timestamp) * 1000, message "
@@ -156,19 +183,51 @@ public class SeenHandler implements CommandHandler, MessageHandler {
     }
 
     /**
-     * Updates or inserts the given last seen message for the given nick and channel.
-     *
-     * @param channel channel
-     * @param nick    nick
-     * @param message message
+     * Writes the buffered messages to the database.
+     * <p>
+     * Messages stay in the buffer until written; a message replaced by a newer one during the flush
+     * is kept for the next flush.
      */
-    private void upsert(String channel, String nick, String message) {
-        int affectedRows = jdbc.update("UPDATE seen SET message = ?, timestamp = NOW() WHERE channel = ? AND nick = ?",
-                message, channel, nick);
-        if (affectedRows == 0) {
-            jdbc.update("INSERT INTO seen (channel, nick, message) VALUES (?, ?, ?)",
-                    channel, nick, message);
+    @Scheduled(fixedDelay = 5000)
+    @PreDestroy
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<QuoteMessage> messages = List.copyOf(pending.values());
+        long start = System.nanoTime();
+        try {
+            jdbc.batchUpdate("INSERT INTO seen (channel, nick, timestamp, message) VALUES (?, ?, ?, ?) "
+                            + "ON CONFLICT (channel, nick) DO UPDATE SET timestamp = EXCLUDED.timestamp, message = EXCLUDED.message",
+                    messages.stream()
+                            .map(message -> new Object[]{message.getChannel(), message.getNick(),
+                                    new Timestamp(message.getTimestamp()), message.getMessage()})
+                            .toList());
+        } catch (DataAccessException e) {
+            if (!flushFailed) {
+                LOG.error("failed to write {} seen messages, will retry", messages.size(), e);
+            }
+            flushFailed = true;
+            return;
         }
+        flushFailed = false;
+        messages.forEach(message -> pending.remove(new SeenKey(message.getChannel(), message.getNick()), message));
+        lastFlushMillis = (System.nanoTime() - start) / 1_000_000;
+        LOG.debug("wrote {} seen messages in {} ms", messages.size(), lastFlushMillis);
+    }
+
+    /**
+     * @return number of buffered messages not yet written to the database
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return duration of the last successful flush in milliseconds
+     */
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
     }
 
     @Override
@@ -180,4 +239,7 @@ public class SeenHandler implements CommandHandler, MessageHandler {
     public boolean isOnlyTalkChannels() {
         return true;
     }
+
+    private record SeenKey(String channel, String nick) {
+    }
 }
@@ -2,18 +2,28 @@ package de.throughput.ircbot.handler;
 
 import static java.util.stream.Collectors.toSet;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jakarta.annotation.PreDestroy;
 import org.pircbotx.PircBotX;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import de.throughput.ircbot.ChannelActivityTracker;
 import de.throughput.ircbot.IrcBotConfig;
 import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
@@ -28,10 +38,14 @@ import de.throughput.ircbot.api.CommandHandler;
  * <p>
  * Also, the bot will randomly share a slogan every now and then if
  * there is activity in the channel.
+ * <p>
+ * Slogans are drawn from a shuffled deck per channel; usage counts are written to the database periodically.
  */
 @Component
 public class SloganCommandHandler implements CommandHandler {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SloganCommandHandler.class);
+
     /**
      * Probability per minute of posting a random slogan if the channel is active.
      * E.g. 0.1 means that on average, every ten minutes a slogan will be posted if
@@ -56,17 +70,24 @@ public class SloganCommandHandler implements CommandHandler {
 
     private final IrcBotConfig botConfig;
     private final JdbcTemplate jdbc;
+    private final ChannelActivityTracker activityTracker;
     private final PircBotX bot;
     private final Random rnd = new Random();
+    private final SloganDeck sloganDeck = new SloganDeck();
+    private final Map<Integer, Usage> pendingUsages = new ConcurrentHashMap<>();
 
     private long lastSloganTimestampEpochMillis = 0L;
 
     @Autowired
-    public SloganCommandHandler(IrcBotConfig botConfig, JdbcTemplate jdbc, @Lazy PircBotX bot) {
+    public SloganCommandHandler(IrcBotConfig botConfig, JdbcTemplate jdbc, ChannelActivityTracker activityTracker,
+            @Lazy PircBotX bot) {
         super();
         this.botConfig = botConfig;
         this.jdbc = jdbc;
+        this.activityTracker = activityTracker;
         this.bot = bot;
+        jdbc.query("SELECT channel, id, slogan FROM slogan",
+                (RowCallbackHandler) rs -> sloganDeck.add(rs.getString(1), rs.getInt(2), rs.getString(3)));
     }
 
     @Override
@@ -140,8 +161,9 @@ public class SloganCommandHandler implements CommandHandler {
      * @param slogan the slogan
      */
     private void storeSlogan(String channel, String nick, String slogan) {
-        jdbc.update("INSERT INTO slogan (channel, nick, slogan) VALUES (?, ?, ?)",
-                channel, nick, slogan);
+        Integer id = jdbc.queryForObject("INSERT INTO slogan (channel, nick, slogan) VALUES (?, ?, ?) RETURNING id",
+                Integer.class, channel, nick, slogan);
+        sloganDeck.add(channel, id, slogan);
     }
 
     /**
@@ -152,33 +174,49 @@ public class SloganCommandHandler implements CommandHandler {
      * @return true if the slogan was found and deleted
      */
     private boolean removeSlogan(String channel, String text) {
-        return jdbc.update("DELETE FROM slogan WHERE channel = ? AND slogan = ?", channel, text) > 0;
+        List<Integer> ids = jdbc.queryForList("DELETE FROM slogan WHERE channel = ? AND slogan = ? RETURNING id",
+                Integer.class, channel, text);
+        ids.forEach(id -> sloganDeck.remove(channel, id));
+        return !ids.isEmpty();
     }
 
     /**
-     * Reads a random slogan from the database.
+     * Draws a random slogan from the channel's deck and records its usage.
      *
      * @param channel channel
-     * @return quote or null if none found
+     * @return the slogan, if the channel has any
      */
     private Optional<String> lookupRandomSlogan(String channel) {
+        return sloganDeck.draw(channel)
+                .map(slogan -> {
+                    pendingUsages.merge(slogan.id(), new Usage(1, System.currentTimeMillis()), Usage::add);
+                    return slogan.text();
+                });
+    }
+
+    /**
+     * Writes the recorded slogan usages to the database.
+     */
+    @Scheduled(fixedDelay = 60000)
+    @PreDestroy
+    public synchronized void flushUsages() {
+        List<Object[]> batch = new ArrayList<>();
+        List<Map.Entry<Integer, Usage>> flushed = new ArrayList<>();
+        for (Integer id : pendingUsages.keySet()) {
+            Usage usage = pendingUsages.remove(id);
+            if (usage != null) {
+                batch.add(new Object[]{usage.count(), new Timestamp(usage.lastUsed()), id});
+                flushed.add(Map.entry(id, usage));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
         try {
-            return Optional.ofNullable(jdbc.queryForObject(
-                    """
-                        WITH random_row AS (
-                            SELECT id
-                              FROM slogan
-                             WHERE channel = ?
-                             ORDER BY RANDOM()
-                             LIMIT 1)
-                        UPDATE slogan
-                           SET count = count + 1, usedstamp = NOW()
-                         WHERE id = (SELECT id FROM random_row)
-                        RETURNING slogan
-                        """,
-                    (rs, rowNum) -> rs.getString(1), channel));
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
+            jdbc.batchUpdate("UPDATE slogan SET count = count + ?, usedstamp = ? WHERE id = ?", batch);
+        } catch (DataAccessException e) {
+            LOG.error("failed to write {} slogan usages, will retry", batch.size(), e);
+            flushed.forEach(entry -> pendingUsages.merge(entry.getKey(), entry.getValue(), Usage::add));
         }
     }
 
@@ -202,22 +240,22 @@ public class SloganCommandHandler implements CommandHandler {
      * Gets a list of active channels where the bot is allowed to talk.
      * <p>
      * A channel is considered active if three different users have spoken
-     * during the last ten minutes.
+     * during the last ten minutes, see {@link ChannelActivityTracker}.
      *
      * @return active channel names
      */
     private Set<String> readActiveTalkChannels() {
-        return jdbc.queryForList(
-                        """
-                            SELECT channel 
-                              FROM seen 
-                             WHERE timestamp > NOW() - INTERVAL '10 minutes' AND nick <> 'gribble'
-                             GROUP BY channel 
-                            HAVING COUNT(nick) > 2;
-                            """, String.class)
+        return activityTracker.getActiveChannels()
                 .stream()
                 .filter(channel -> botConfig.getTalkChannels().contains(channel))
                 .collect(toSet());
     }
 
+    private record Usage(int count, long lastUsed) {
+
+        Usage add(Usage other) {
+            return new Usage(count + other.count, Math.max(lastUsed, other.lastUsed));
+        }
+    }
+
 }
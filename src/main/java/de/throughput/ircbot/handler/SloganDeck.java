@@ -0,0 +1,86 @@
+package de.throughput.ircbot.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Shuffled decks of slogans, one per channel.
+ * <p>
+ * Slogans are drawn from the deck until it is exhausted, so no slogan repeats before all others have been
+ * shown. Then the deck is reshuffled.
+ */
+final class SloganDeck {
+
+    private final Map<String, ChannelDeck> decksByChannel = new HashMap<>();
+
+    synchronized void add(String channel, int id, String slogan) {
+        decksByChannel.computeIfAbsent(channel, k -> new ChannelDeck()).add(id, slogan);
+    }
+
+    synchronized void remove(String channel, int id) {
+        ChannelDeck deck = decksByChannel.get(channel);
+        if (deck != null) {
+            deck.remove(id);
+        }
+    }
+
+    /**
+     * Draws the next slogan for the channel.
+     *
+     * @param channel channel
+     * @return the slogan, if the channel has any
+     */
+    synchronized Optional<Slogan> draw(String channel) {
+        ChannelDeck deck = decksByChannel.get(channel);
+        return deck == null ? Optional.empty() : deck.draw();
+    }
+
+    record Slogan(int id, String text) {
+    }
+
+    private static final class ChannelDeck {
+
+        private final Map<Integer, String> slogansById = new LinkedHashMap<>();
+        private final List<Integer> remaining = new ArrayList<>();
+        private int lastDrawn = -1;
+
+        void add(int id, String slogan) {
+            slogansById.put(id, slogan);
+            // shuffle into the current round
+            remaining.add(ThreadLocalRandom.current().nextInt(remaining.size() + 1), id);
+        }
+
+        void remove(int id) {
+            slogansById.remove(id);
+            remaining.remove(Integer.valueOf(id));
+        }
+
+        Optional<Slogan> draw() {
+            if (slogansById.isEmpty()) {
+                return Optional.empty();
+            }
+            if (remaining.isEmpty()) {
+                reshuffle();
+            }
+            int id = remaining.remove(remaining.size() - 1);
+            lastDrawn = id;
+            return Optional.of(new Slogan(id, slogansById.get(id)));
+        }
+
+        private void reshuffle() {
+            remaining.addAll(slogansById.keySet());
+            Collections.shuffle(remaining, ThreadLocalRandom.current());
+            // don't repeat the last slogan of the previous round right away
+            int last = remaining.size() - 1;
+            if (last > 0 && remaining.get(last) == lastDrawn) {
+                Collections.swap(remaining, 0, last);
+            }
+        }
+    }
+}
@@ -2,7 +2,9 @@ package de.throughput.ircbot.handler;
 
 import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
+import de.throughput.ircbot.HttpService;
 import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -14,9 +16,9 @@ import org.springframework.stereotype.Component;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Currency;
@@ -43,14 +45,17 @@ public class StockAlphavantageCommandHandler implements CommandHandler {
     private static final Object RATE_LIMIT_LOCK = new Object();
     private static long nextAllowedRequestTimeMs = 0L;
 
-    private static final Command CMD_STOCK = new Command("stock", "stock <symbols> - get price information on stock symbols. example: !stock AMD");
+    private static final Command CMD_STOCK = new Command("stock", "stock <symbols> - get price information on stock symbols. example: !stock AMD",
+            CommandCost.weight(2).global(25, Duration.ofDays(1)));
 
     private static final String API_URL_STOCK_QUOTE = "https://www.alphavantage.co/query?function=GLOBAL_QUOTE&symbol=%s&apikey=%s";
 
     private final String apiKey;
+    private final HttpService httpService;
 
-    public StockAlphavantageCommandHandler(@Value("${alphavantage.apiKey}") String apiKey) {
+    public StockAlphavantageCommandHandler(@Value("${alphavantage.apiKey}") String apiKey, HttpService httpService) {
         this.apiKey = apiKey;
+        this.httpService = httpService;
     }
 
     @Override
@@ -138,7 +143,7 @@ public class StockAlphavantageCommandHandler implements CommandHandler {
                 .GET()
                 .build();
 
-        return HttpClient.newHttpClient()
+        return httpService
                 .sendAsync(request, HttpResponse.BodyHandlers.ofString())
                 .thenApply(this::processStockQuoteResponse);
     }
@@ -2,7 +2,9 @@ package de.throughput.ircbot.handler;
 
 import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
+import de.throughput.ircbot.HttpService;
 import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandCost;
 import de.throughput.ircbot.api.CommandEvent;
 import de.throughput.ircbot.api.CommandHandler;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,9 +14,9 @@ import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -24,13 +26,16 @@ import java.util.stream.Collectors;
 @Component
 public class StockPriceHandler implements CommandHandler {
 
-    private static final Command CMD_PRICE = new Command("price", "price <symbols> - get real time price information on stock symbols. example: !price NVDA AAPL");
+    private static final Command CMD_PRICE = new Command("price", "price <symbols> - get real time price information on stock symbols. example: !price NVDA AAPL",
+            CommandCost.weight(2).global(400, Duration.ofDays(1)));
     private static final String BATCH_API_URL = "https://api.twelvedata.com/batch";
 
     private final String apiKey;
+    private final HttpService httpService;
 
-    public StockPriceHandler(@Value("${twelvedata.apiKey}") String apiKey) {
+    public StockPriceHandler(@Value("${twelvedata.apiKey}") String apiKey, HttpService httpService) {
         this.apiKey = apiKey;
+        this.httpService = httpService;
     }
 
     @Override
@@ -70,15 +75,14 @@ public class StockPriceHandler implements CommandHandler {
                 .POST(HttpRequest.BodyPublishers.ofString(payload))
                 .build();
 
-        HttpClient.newHttpClient()
+        httpService
                 .sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString())
                 .thenApply(httpResponse -> processBatchResponse(httpResponse, reqToSymbol))
                 .thenAccept(command::respond)
                 .exceptionally(e -> {
                     command.respond("Error: " + e.getMessage());
                     return null;
-                })
-                .join();
+                });
     }
 
     private String processBatchResponse(HttpResponse<String> httpResponse, Map<String, String> reqToSymbol) {
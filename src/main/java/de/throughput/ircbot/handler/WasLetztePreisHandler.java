@@ -5,14 +5,24 @@ import lombok.RequiredArgsConstructor;
 import org.pircbotx.hooks.events.MessageEvent;
 import org.springframework.stereotype.Component;
 
+import de.throughput.ircbot.CommandRateLimiter;
 import de.throughput.ircbot.api.CommandEvent;
+import de.throughput.ircbot.api.MessageFilter;
 import de.throughput.ircbot.api.MessageHandler;
+import de.throughput.ircbot.api.ParsedMessage;
 
 @Component
 @RequiredArgsConstructor
 public class WasLetztePreisHandler implements MessageHandler {
 
+    private static final String MESSAGE = "was letzte preis?";
+
+    private static final MessageFilter MESSAGE_FILTER = MessageFilter.builder()
+            .exactIgnoreCase(MESSAGE)
+            .build();
+
     private final CryptoCommandHandler cryptoHandler;
+    private final CommandRateLimiter commandRateLimiter;
 
     @Override
     public boolean isOnlyTalkChannels() {
@@ -20,14 +30,20 @@ public class WasLetztePreisHandler implements MessageHandler {
     }
 
     @Override
-    public boolean onMessage(MessageEvent event) {
-        String message = event.getMessage()
-                .trim()
-                .toLowerCase();
-        if (message.equals("was letzte preis?")) {
-            return cryptoHandler.onCommand(new CommandEvent(event, CryptoCommandHandler.CMD_CRYPTO, "!", Optional.of("btc")));
+    public boolean onMessage(MessageEvent event, ParsedMessage message) {
+        if (message.getLowerCase().equals(MESSAGE)) {
+            if (!commandRateLimiter.tryAcquire(message.getNick(), message.getChannel(), CryptoCommandHandler.CMD_CRYPTO)) {
+                event.respond("that's enough crypto for now, try again later.");
+                return true;
+            }
+            return cryptoHandler.onCommand(new CommandEvent(event, CryptoCommandHandler.CMD_CRYPTO, "!", Optional.of("btc"), message));
         }
         return false;
     }
 
+    @Override
+    public MessageFilter getMessageFilter() {
+        return MESSAGE_FILTER;
+    }
+
 }
@@ -1,6 +1,7 @@
 package de.throughput.ircbot.handler;
 
 import com.google.gson.Gson;
+import de.throughput.ircbot.HttpService;
 import de.throughput.ircbot.Util;
 import de.throughput.ircbot.api.Command;
 import de.throughput.ircbot.api.CommandEvent;
@@ -11,7 +12,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.List;
@@ -32,9 +32,11 @@ public class WeatherCommandHandler implements CommandHandler {
     private static final String WEATHER_URL = "http://api.openweathermap.org/data/2.5/weather?lat=%f&lon=%f&units=imperial&appid=%s";
 
     private final String apiKey;
+    private final HttpService httpService;
 
-    public WeatherCommandHandler(@Value("${openweathermap.apiKey}") String apiKey) {
+    public WeatherCommandHandler(@Value("${openweathermap.apiKey}") String apiKey, HttpService httpService) {
         this.apiKey = apiKey;
+        this.httpService = httpService;
     }
 
     @Override
@@ -67,7 +69,7 @@ public class WeatherCommandHandler implements CommandHandler {
                 .GET()
                 .build();
 
-        return HttpClient.newHttpClient()
+        return httpService
                 .sendAsync(request, HttpResponse.BodyHandlers.ofString())
                 .thenApply(this::processGeocodingResponse);
     }
@@ -87,7 +89,7 @@ public class WeatherCommandHandler implements CommandHandler {
                 .GET()
                 .build();
 
-        return HttpClient.newHttpClient()
+        return httpService
                 .sendAsync(request, HttpResponse.BodyHandlers.ofString())
                 .thenApply(response -> processWeatherResponse(location, response));
     }
@@ -0,0 +1,59 @@
+package de.throughput.ircbot.handler;
+
+/**
+ * Character classes of {@link java.util.regex.Pattern} for hand-written message parsers: {@code \s} and the line
+ * terminators which {@code .} doesn't match.
+ */
+final class Whitespace {
+
+    private Whitespace() {
+    }
+
+    /**
+     * @return true if the character matches {@code \s}
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * @return true if the character is not matched by {@code .}
+     */
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * @return the index of the first non-whitespace character at or after {@code from}, or the length of the string
+     */
+    static int skip(String s, int from) {
+        int i = from;
+        while (i < s.length() && isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the index after the last non-whitespace character before {@code end}, or {@code from}
+     */
+    static int trimEnd(String s, int from, int end) {
+        int i = end;
+        while (i > from && isWhitespace(s.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * @return true if there is a line terminator in the range
+     */
+    static boolean containsLineTerminator(String s, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (isLineTerminator(s.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,50 @@
+package de.throughput.ircbot.handler.urls;
+
+/**
+ * Bloom filter of 64-bit hashes, with a fixed number of bits.
+ * <p>
+ * The bit positions are derived from the two halves of the hash. Not thread-safe.
+ */
+final class BloomFilter {
+
+    private final long[] bits;
+    private final int mask;
+    private final int hashCount;
+
+    /**
+     * @param bitCount  number of bits, a power of two
+     * @param hashCount number of bits set per hash
+     */
+    BloomFilter(int bitCount, int hashCount) {
+        if (Integer.bitCount(bitCount) != 1 || bitCount < 64) {
+            throw new IllegalArgumentException("bit count must be a power of two of at least 64");
+        }
+        this.bits = new long[bitCount / 64];
+        this.mask = bitCount - 1;
+        this.hashCount = hashCount;
+    }
+
+    void add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @return false if the hash has certainly not been added
+     */
+    boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
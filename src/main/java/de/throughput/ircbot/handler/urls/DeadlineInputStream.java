@@ -0,0 +1,95 @@
+package de.throughput.ircbot.handler.urls;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response body which ends when its deadline has passed.
+ * <p>
+ * The timeout of an HTTP request only covers the arrival of the response headers, and a read of the body
+ * blocks for as long as the server keeps the connection open without sending anything. So the body is
+ * closed when the time is up, which wakes up a blocked read; from then on, the stream appears to have ended.
+ * The stream must be closed to cancel the deadline.
+ */
+final class DeadlineInputStream extends FilterInputStream {
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        thread.setName("read-deadline");
+        return thread;
+    });
+
+    static {
+        // most bodies are read in time, don't keep their deadlines around
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    private final ScheduledFuture<?> expiry;
+    private volatile boolean expired;
+
+    /**
+     * @param body          the response body
+     * @param timeoutMillis time from now until the body is closed
+     */
+    DeadlineInputStream(InputStream body, long timeoutMillis) {
+        super(body);
+        this.expiry = SCHEDULER.schedule(this::expire, Math.max(0, timeoutMillis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return {@code true} if the deadline has passed and the stream was cut off
+     */
+    boolean isExpired() {
+        return expired;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (expired) {
+            return -1;
+        }
+        try {
+            return super.read();
+        } catch (IOException e) {
+            if (expired) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (expired) {
+            return -1;
+        }
+        try {
+            return super.read(b, off, len);
+        } catch (IOException e) {
+            if (expired) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        expiry.cancel(false);
+        super.close();
+    }
+
+    private void expire() {
+        expired = true;
+        try {
+            in.close();
+        } catch (IOException e) {
+            // the reader ends either way
+        }
+    }
+}
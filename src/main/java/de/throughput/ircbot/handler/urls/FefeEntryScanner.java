@@ -0,0 +1,156 @@
+package de.throughput.ircbot.handler.urls;
+
+import java.util.Optional;
+
+/**
+ * Finds the first sentence of the first entry on a page of Fefe's blog while the page is being downloaded.
+ * <p>
+ * An entry starts with {@code <li><a href="...">[l]</a>}. Its first sentence ends with the first '.', '!' or
+ * '?' outside of double quotes, so dots in attribute values don't end it. Only the text from a possible
+ * entry start on is buffered, and the scanner gives up after a maximum number of characters. Sentences
+ * longer than the maximum sentence length are cut off.
+ */
+final class FefeEntryScanner {
+
+    private static final String ENTRY_START = "<li><a href=\"";
+    private static final String ENTRY_LINK_END = "\">[l]</a>";
+    private static final int MAX_HREF_LENGTH = 2048;
+
+    private final int maxChars;
+    private final int maxSentenceLength;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private int consumed;
+    /**
+     * Position in the buffer to continue at.
+     */
+    private int position;
+    /**
+     * Start of the sentence in the buffer, or -1 while looking for the entry.
+     */
+    private int sentenceStart = -1;
+    private boolean inQuotes;
+
+    private String sentence;
+    private boolean done;
+
+    /**
+     * @param maxChars          number of characters to read at most
+     * @param maxSentenceLength number of characters of the sentence to keep at most
+     */
+    FefeEntryScanner(int maxChars, int maxSentenceLength) {
+        this.maxChars = maxChars;
+        this.maxSentenceLength = maxSentenceLength;
+    }
+
+    /**
+     * Scans the next chunk of the page.
+     *
+     * @return {@code true} if the scanner is done and no more input is needed
+     */
+    boolean feed(char[] chunk, int offset, int length) {
+        if (done) {
+            return true;
+        }
+        int accepted = Math.min(length, maxChars - consumed);
+        buffer.append(chunk, offset, accepted);
+        consumed += accepted;
+        scan();
+        return done;
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    boolean isFull() {
+        return consumed >= maxChars;
+    }
+
+    /**
+     * @return the first sentence of the entry, including markup, or empty if it hasn't been found
+     */
+    Optional<String> getSentence() {
+        return Optional.ofNullable(sentence);
+    }
+
+    private void scan() {
+        while (sentenceStart < 0) {
+            if (!findEntry()) {
+                return;
+            }
+        }
+        scanSentence();
+    }
+
+    /**
+     * Looks for the start of an entry and drops the text before it.
+     *
+     * @return {@code true} if the entry has been found, or if there is another candidate to check
+     */
+    private boolean findEntry() {
+        int entry = buffer.indexOf(ENTRY_START, position);
+        if (entry < 0) {
+            // keep what might be the beginning of an entry
+            discard(Math.max(0, buffer.length() - ENTRY_START.length() + 1));
+            return false;
+        }
+        int hrefStart = entry + ENTRY_START.length();
+        int hrefEnd = buffer.indexOf("\"", hrefStart);
+        if (hrefEnd < 0 && buffer.length() - hrefStart <= MAX_HREF_LENGTH) {
+            discard(entry);
+            return false;
+        }
+        if (hrefEnd == hrefStart || hrefEnd < 0 || hrefEnd - hrefStart > MAX_HREF_LENGTH) {
+            position = entry + 1;
+            return true;
+        }
+        if (buffer.length() < hrefEnd + ENTRY_LINK_END.length()) {
+            discard(entry);
+            return false;
+        }
+        if (!ENTRY_LINK_END.contentEquals(buffer.subSequence(hrefEnd, hrefEnd + ENTRY_LINK_END.length()))) {
+            position = entry + 1;
+            return true;
+        }
+        discard(hrefEnd + ENTRY_LINK_END.length());
+        sentenceStart = 0;
+        return true;
+    }
+
+    private void scanSentence() {
+        for (; position < buffer.length(); position++) {
+            char c = buffer.charAt(position);
+            if (position == sentenceStart && c == ' ') {
+                // spaces after the link
+                sentenceStart++;
+                continue;
+            }
+            if (inQuotes) {
+                inQuotes = c != '"';
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == '.' || c == '!' || c == '?') {
+                endSentence();
+                return;
+            }
+            if (position + 1 - sentenceStart >= maxSentenceLength) {
+                endSentence();
+                return;
+            }
+        }
+    }
+
+    private void endSentence() {
+        sentence = buffer.substring(sentenceStart, position + 1);
+        done = true;
+    }
+
+    /**
+     * Drops the first characters of the buffer.
+     */
+    private void discard(int count) {
+        buffer.delete(0, count);
+        position = Math.max(0, position - count);
+    }
+}
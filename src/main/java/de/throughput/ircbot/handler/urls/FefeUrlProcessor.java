@@ -1,28 +1,58 @@
 package de.throughput.ircbot.handler.urls;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.pircbotx.hooks.events.MessageEvent;
-import org.pircbotx.hooks.types.GenericMessageEvent;
+import de.throughput.ircbot.HttpService;
 import org.springframework.stereotype.Component;
 
 /**
  * Gets a preview for Fefe's blog URLs.
+ * <p>
+ * The page is streamed through a {@link FefeEntryScanner}, and the download stops at the end of the first
+ * sentence of the entry. Entries don't change, so their titles are kept by id for good, up to a maximum
+ * number of entries.
  */
 @Component
 public class FefeUrlProcessor implements UrlProcessor {
 
     private static final Pattern FEFE_URL = Pattern.compile("^https://blog.fefe.de/\\?ts=([0-9a-f]{8})$");
 
-    private static final Pattern FEFE_TITLE_PATTERN = Pattern.compile(
-            ".*<li><a href=\"[^\"]+\">\\[l\\]</a> *(([^\"]|\"[^\"]*\")*?([\\.\\!\\?])).*");
+    private static final int MAX_BODY_CHARS = 524288;
+    private static final int MAX_SENTENCE_LENGTH = 4096;
+    private static final int READ_TIMEOUT_MS = 3000;
+    private static final int CHUNK_SIZE = 8192;
+    private static final int MAX_CACHED_TITLES = 10000;
+
+    private final HttpService httpService;
+    private final Map<String, String> titlesById = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_CACHED_TITLES;
+                }
+            });
+
+    public FefeUrlProcessor(HttpService httpService) {
+        this.httpService = httpService;
+    }
 
     @Override
     public Set<Pattern> getUrlPatterns() {
@@ -30,34 +60,64 @@ public class FefeUrlProcessor implements UrlProcessor {
     }
 
     @Override
-    public void process(Matcher matcher, MessageEvent event) {
-        processFefeUrl(event, matcher.group(0));
+    public Set<String> getHosts() {
+        return Set.of("blog.fefe.de");
     }
 
-    private void processFefeUrl(MessageEvent event, String url) {
+    @Override
+    public CompletableFuture<Optional<UrlPreview>> process(Matcher matcher) {
+        String id = matcher.group(1);
+        String title = titlesById.get(id);
+        if (title != null) {
+            return CompletableFuture.completedFuture(Optional.of(toPreview(title)));
+        }
+        return processFefeUrl(id, matcher.group(0));
+    }
+
+    private CompletableFuture<Optional<UrlPreview>> processFefeUrl(String id, String url) {
         HttpRequest request = HttpRequest.newBuilder(URI.create(url))
                 .GET()
                 .build();
-        HttpClient.newHttpClient()
-                .sendAsync(request, BodyHandlers.ofString())
-                .thenAccept(httpResponse -> {
-                    processResponse(event, httpResponse);
-                });
-    }
-
-    private void processResponse(MessageEvent event, HttpResponse<String> httpResponse) {
-        if (httpResponse.statusCode() == 200) {
-            Matcher matcher = FEFE_TITLE_PATTERN.matcher(httpResponse.body());
-            if (matcher.find()) {
-                String title = matcher.group(1);
-                title = title.replaceAll("<[^>]+>", "");
-                if (title.length() > 600) {
-                    title = title.substring(0, 600) + "(...)";
-                }
-                event.getChannel().send().message(String.format("^ Fefe's Blog: '%s'", title));
+        return httpService
+                .sendAsync(request, BodyHandlers.ofInputStream())
+                .thenApply(response -> processResponse(id, response));
+    }
+
+    private Optional<UrlPreview> processResponse(String id, HttpResponse<InputStream> httpResponse) {
+        try (InputStream body = new DeadlineInputStream(httpResponse.body(), READ_TIMEOUT_MS)) {
+            if (httpResponse.statusCode() != 200) {
+                return Optional.of(UrlPreview.reply("" + httpResponse.statusCode()));
             }
-        } else {
-            event.respond("" + httpResponse.statusCode());
+            Optional<String> title = readSentence(httpResponse, body)
+                    .map(sentence -> sentence.replaceAll("<[^>]+>", ""));
+            title.ifPresent(t -> titlesById.put(id, t));
+            return title.map(FefeUrlProcessor::toPreview);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Optional<String> readSentence(HttpResponse<InputStream> httpResponse, InputStream body)
+            throws IOException {
+        Charset charset = HtmlTitleScanner.toCharset(HtmlTitleScanner.charsetParameter(
+                httpResponse.headers().firstValue("Content-Type").orElse(null)));
+        Reader reader = new InputStreamReader(body, charset == null ? StandardCharsets.UTF_8 : charset);
+        FefeEntryScanner scanner = new FefeEntryScanner(MAX_BODY_CHARS, MAX_SENTENCE_LENGTH);
+        char[] chunk = new char[CHUNK_SIZE];
+        int read;
+        while (!scanner.isFull() && (read = reader.read(chunk)) >= 0) {
+            if (scanner.feed(chunk, 0, read)) {
+                // closing the body stops the download
+                break;
+            }
+        }
+        return scanner.getSentence();
+    }
+
+    private static UrlPreview toPreview(String title) {
+        if (title.length() > 600) {
+            title = title.substring(0, 600) + "(...)";
         }
+        return UrlPreview.message(String.format("^ Fefe's Blog: '%s'", title));
     }
 }
@@ -0,0 +1,332 @@
+package de.throughput.ircbot.handler.urls;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.jsoup.parser.Parser;
+
+/**
+ * Finds the title of an HTML document while it is being downloaded.
+ * <p>
+ * The body is fed in chunks as it arrives. The scanner walks the tags of the document head on the raw bytes,
+ * skipping comments, scripts and styles, and picks up the charset from {@code <meta>} tags. It is done as
+ * soon as {@code </title>} has been read, or when the head ends; then {@code og:title} is used if there was
+ * no title. Only the bytes read so far are kept, so a caller can still hand them to a full parser if the
+ * scanner never gets done.
+ */
+final class HtmlTitleScanner {
+
+    private static final int INITIAL_CAPACITY = 16 * 1024;
+
+    private final Charset headerCharset;
+    private final int maxBytes;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int size;
+    /**
+     * Position of the next tag to look at.
+     */
+    private int position;
+    /**
+     * When waiting for the end of the element at {@link #position}, where to continue searching for it.
+     */
+    private int resumeSearchAt;
+
+    private Charset metaCharset;
+    private String title;
+    private String ogTitle;
+    private boolean done;
+
+    /**
+     * @param headerCharset charset given by the Content-Type header, or {@code null}
+     * @param maxBytes      number of bytes to buffer at most
+     */
+    HtmlTitleScanner(Charset headerCharset, int maxBytes) {
+        this.headerCharset = headerCharset;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Scans the next chunk of the body.
+     *
+     * @return {@code true} if the scanner is done and no more input is needed
+     */
+    boolean feed(byte[] chunk, int offset, int length) {
+        if (done) {
+            return true;
+        }
+        int accepted = Math.min(length, maxBytes - size);
+        if (size + accepted > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(maxBytes, Math.max(size + accepted, buffer.length * 2)));
+        }
+        System.arraycopy(chunk, offset, buffer, size, accepted);
+        size += accepted;
+        scan();
+        return done;
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    boolean isFull() {
+        return size >= maxBytes;
+    }
+
+    /**
+     * @return the title, if the scanner is done and the head had one
+     */
+    Optional<String> getTitle() {
+        if (title != null && !title.isEmpty()) {
+            return Optional.of(title);
+        }
+        return Optional.ofNullable(ogTitle).filter(t -> !t.isEmpty());
+    }
+
+    byte[] getBytes() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * @return the charset from the header or a meta tag, {@code null} if none was given
+     */
+    Charset getDeclaredCharset() {
+        return headerCharset != null ? headerCharset : metaCharset;
+    }
+
+    private Charset charset() {
+        Charset declared = getDeclaredCharset();
+        return declared != null ? declared : StandardCharsets.UTF_8;
+    }
+
+    private void scan() {
+        while (!done) {
+            int lt = indexOf((byte) '<', position);
+            if (lt < 0) {
+                position = size;
+                return;
+            }
+            if (regionMatches(lt + 1, "!--")) {
+                int end = find("-->", lt + 4);
+                if (end < 0) {
+                    waitAt(lt, "-->");
+                    return;
+                }
+                position = end + 3;
+                continue;
+            }
+            int nameStart = lt + 1;
+            boolean closing = nameStart < size && buffer[nameStart] == '/';
+            if (closing) {
+                nameStart++;
+            }
+            int nameEnd = nameStart;
+            while (nameEnd < size && isNameChar(buffer[nameEnd])) {
+                nameEnd++;
+            }
+            if (!closing && nameStart < size && !isTagStart(buffer[nameStart])) {
+                // text, like "a < b" or "<3"
+                position = lt + 1;
+                continue;
+            }
+            int gt = indexOf((byte) '>', nameEnd);
+            if (nameEnd == size || gt < 0) {
+                position = lt;
+                return;
+            }
+            String name = new String(buffer, nameStart, nameEnd - nameStart, StandardCharsets.ISO_8859_1)
+                    .toLowerCase(Locale.ROOT);
+            if (closing) {
+                if (name.equals("head")) {
+                    done = true;
+                }
+                position = gt + 1;
+                continue;
+            }
+            switch (name) {
+                case "title" -> {
+                    int end = find("</title", gt + 1);
+                    if (end < 0) {
+                        waitAt(lt, "</title");
+                        return;
+                    }
+                    title = normalize(Parser.unescapeEntities(new String(buffer, gt + 1, end - gt - 1, charset()), false));
+                    done = !title.isEmpty();
+                    position = end;
+                }
+                case "script", "style" -> {
+                    int end = find("</" + name, gt + 1);
+                    if (end < 0) {
+                        waitAt(lt, "</" + name);
+                        return;
+                    }
+                    position = end;
+                }
+                case "meta" -> {
+                    meta(attributes(nameEnd, gt));
+                    position = gt + 1;
+                }
+                case "body" -> done = true;
+                default -> position = gt + 1;
+            }
+        }
+    }
+
+    private void meta(Map<String, String> attributes) {
+        String charsetName = attributes.get("charset");
+        if (charsetName == null && "content-type".equalsIgnoreCase(attributes.get("http-equiv"))) {
+            charsetName = charsetParameter(attributes.get("content"));
+        }
+        if (charsetName != null && metaCharset == null) {
+            metaCharset = toCharset(charsetName);
+        }
+        String property = attributes.get("property");
+        if ("og:title".equalsIgnoreCase(property) && ogTitle == null && attributes.get("content") != null) {
+            // attribute values were read as ISO-8859-1, restore the bytes to decode them properly
+            String content = new String(attributes.get("content").getBytes(StandardCharsets.ISO_8859_1), charset());
+            ogTitle = normalize(Parser.unescapeEntities(content, true));
+        }
+    }
+
+    /**
+     * Reads the attributes of a tag; names are lower case, values are ISO-8859-1.
+     */
+    private Map<String, String> attributes(int start, int end) {
+        Map<String, String> attributes = new HashMap<>();
+        String tag = new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+        int i = 0;
+        while (i < tag.length()) {
+            while (i < tag.length() && (Character.isWhitespace(tag.charAt(i)) || tag.charAt(i) == '/')) {
+                i++;
+            }
+            int nameStart = i;
+            while (i < tag.length() && tag.charAt(i) != '=' && !Character.isWhitespace(tag.charAt(i)) && tag.charAt(i) != '/') {
+                i++;
+            }
+            String name = tag.substring(nameStart, i).toLowerCase(Locale.ROOT);
+            while (i < tag.length() && Character.isWhitespace(tag.charAt(i))) {
+                i++;
+            }
+            String value = "";
+            if (i < tag.length() && tag.charAt(i) == '=') {
+                i++;
+                while (i < tag.length() && Character.isWhitespace(tag.charAt(i))) {
+                    i++;
+                }
+                if (i < tag.length() && (tag.charAt(i) == '"' || tag.charAt(i) == '\'')) {
+                    char quote = tag.charAt(i++);
+                    int valueEnd = tag.indexOf(quote, i);
+                    valueEnd = valueEnd < 0 ? tag.length() : valueEnd;
+                    value = tag.substring(i, valueEnd);
+                    i = valueEnd + 1;
+                } else {
+                    int valueStart = i;
+                    while (i < tag.length() && !Character.isWhitespace(tag.charAt(i))) {
+                        i++;
+                    }
+                    value = tag.substring(valueStart, i);
+                }
+            }
+            if (!name.isEmpty()) {
+                attributes.putIfAbsent(name, value);
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Gets the charset parameter of a content type like {@code text/html; charset=utf-8}.
+     *
+     * @return the charset name, or {@code null}
+     */
+    static String charsetParameter(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int index = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (index < 0) {
+            return null;
+        }
+        String value = contentType.substring(index + 8).split(";", 2)[0].trim();
+        return value.replace("\"", "").replace("'", "");
+    }
+
+    /**
+     * @return the charset, or {@code null} if it isn't supported
+     */
+    static Charset toCharset(String name) {
+        try {
+            return name == null || name.isBlank() ? null : Charset.forName(name.trim());
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+
+    private void waitAt(int tagStart, String marker) {
+        if (position != tagStart) {
+            position = tagStart;
+            resumeSearchAt = tagStart;
+        }
+        // the marker may start in the part read so far
+        resumeSearchAt = Math.max(resumeSearchAt, size - marker.length());
+    }
+
+    /**
+     * Finds an ASCII marker, ignoring case, continuing where an earlier search for the same element stopped.
+     */
+    private int find(String marker, int from) {
+        int start = Math.max(from, resumeSearchAt);
+        for (int i = start; i <= size - marker.length(); i++) {
+            if (regionMatches(i, marker)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(int offset, String marker) {
+        if (offset + marker.length() > size) {
+            return false;
+        }
+        for (int i = 0; i < marker.length(); i++) {
+            int b = buffer[offset + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 32;
+            }
+            if (b != marker.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(byte b, int from) {
+        for (int i = from; i < size; i++) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return {@code true} if the character after '<' starts a tag, a declaration or a processing instruction
+     */
+    private static boolean isTagStart(byte b) {
+        return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b == '!' || b == '?';
+    }
+
+    private static boolean isNameChar(byte b) {
+        return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9' || b == '-' || b == ':';
+    }
+
+    private static String normalize(String text) {
+        return text.replaceAll("\\s+", " ").strip();
+    }
+}
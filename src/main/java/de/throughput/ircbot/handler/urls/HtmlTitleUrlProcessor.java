@@ -1,67 +1,209 @@
 package de.throughput.ircbot.handler.urls;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
-import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
-import org.jsoup.UnsupportedMimeTypeException;
-import org.pircbotx.hooks.events.MessageEvent;
-import org.pircbotx.hooks.types.GenericMessageEvent;
-import org.springframework.context.ApplicationEventPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import de.throughput.ircbot.handler.TitleEvent;
+import de.throughput.ircbot.HttpService;
 
 /**
- * Gets a preview for URLs by looking at the HTML title tag.
+ * Gets a preview for URLs by looking at the HTML title tag, or at the header of images and PDF documents.
  * <p>
  * Does not implement {@link UrlProcessor} - serves as fallback if no specific processor matched.
+ * <p>
+ * The body is streamed through a {@link HtmlTitleScanner}, and the download stops as soon as the title has
+ * been seen. Only if the scanner can't find the end of the title or the head, the bytes read are parsed
+ * with Jsoup. Images and PDF documents are only read as far as needed, see {@link ImageInfo} and
+ * {@link PdfInfo}. Reading the body ends after {@value #READ_TIMEOUT_MS} ms, see {@link DeadlineInputStream}.
  */
 @Component
 @RequiredArgsConstructor
 public class HtmlTitleUrlProcessor {
 
+    private static final Logger LOG = LoggerFactory.getLogger(HtmlTitleUrlProcessor.class);
+
     private static final int MAX_BODY_SIZE_512K = 524288;
     private static final int READ_TIMEOUT_MS = 3000;
+    private static final int MAX_REDIRECTS = 5;
+    private static final int CHUNK_SIZE = 8192;
     private static final String MOZILLA_USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/87.0.4280.88 Safari/537.36";
 
-    private final ApplicationEventPublisher eventPublisher;
+    private final HttpService httpService;
 
-    public void process(String url, MessageEvent event) {
-        try {
-            URI uri = URI.create(url);
-            String title = Jsoup.connect(url)
-                    .userAgent(MOZILLA_USER_AGENT)
-                    .header("Accept-Language", "en-US, en;q=0.9, *;q=0.5")
-                    .maxBodySize(MAX_BODY_SIZE_512K)
-                    .timeout(READ_TIMEOUT_MS)
-                    .get()
-                    .title();
-
-            if (!StringUtils.isEmpty(title)) {
-
-                if (title.length() > 600) {
-                    title = title.substring(0, 600) + "(...)";
-                }
-
-                String message = String.format("^ '%s'", title);
-                event.getChannel().send().message(message);
-
-                // intentionally sending the shortened title
-                eventPublisher.publishEvent(new TitleEvent(this, title));
+    /**
+     * Gets the preview for a URL.
+     *
+     * @param url the URL
+     * @return the preview, or empty if there is none
+     */
+    public CompletableFuture<Optional<UrlPreview>> process(String url) {
+        return fetchPreview(URI.create(url), 0)
+                .exceptionally(e -> {
+                    if (e.getCause() instanceof NotFoundException) {
+                        // only show 404
+                        return Optional.of(UrlPreview.reply("404: HTTP error fetching URL"));
+                    }
+                    LOG.debug("failed to get title of {}: {}", url, e.getMessage());
+                    // not a preview, so it isn't cached
+                    throw e instanceof CompletionException ce ? ce : new CompletionException(e);
+                });
+    }
+
+    private static UrlPreview toPreview(String title) {
+        if (title.length() > 600) {
+            title = title.substring(0, 600) + "(...)";
+        }
+        // intentionally publishing the shortened title
+        return UrlPreview.titled(String.format("^ '%s'", title), title);
+    }
+
+    private CompletableFuture<Optional<UrlPreview>> fetchPreview(URI uri, int redirects) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("User-Agent", MOZILLA_USER_AGENT)
+                .header("Accept-Language", "en-US, en;q=0.9, *;q=0.5")
+                .timeout(Duration.ofMillis(READ_TIMEOUT_MS))
+                .GET()
+                .build();
+        return httpService.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenCompose(response -> {
+                    Optional<String> location = response.headers().firstValue("Location");
+                    if (response.statusCode() / 100 == 3 && location.isPresent() && redirects < MAX_REDIRECTS) {
+                        close(response.body());
+                        return fetchPreview(uri.resolve(location.get()), redirects + 1);
+                    }
+                    return CompletableFuture.completedFuture(readPreview(uri, response));
+                });
+    }
+
+    private Optional<UrlPreview> readPreview(URI uri, HttpResponse<InputStream> response) {
+        try (InputStream body = new DeadlineInputStream(response.body(), READ_TIMEOUT_MS)) {
+            if (response.statusCode() == 404) {
+                throw new NotFoundException();
             }
-        } catch (HttpStatusException e) {
-            if (e.getStatusCode() == 404) {
-                // only show 404
-                event.respond(String.format("%d: %s", e.getStatusCode(), e.getMessage()));
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+            if (response.statusCode() >= 400) {
+                return Optional.empty();
             }
-        } catch (UnsupportedMimeTypeException e) {
-            // ignore
+            String type = contentType.toLowerCase(Locale.ROOT);
+            OptionalLong contentLength = response.headers().firstValueAsLong("Content-Length");
+            if (type.startsWith("image/")) {
+                return Optional.of(toImagePreview(ImageInfo.read(body), type, contentLength));
+            }
+            if (type.startsWith("application/pdf")) {
+                return PdfInfo.read(httpService, response, body, contentLength)
+                        .map(info -> toPdfPreview(info, contentLength));
+            }
+            if (!isHtml(contentType)) {
+                return Optional.empty();
+            }
+            return readTitle(uri, contentType, body)
+                    .filter(StringUtils::isNotEmpty)
+                    .map(HtmlTitleUrlProcessor::toPreview);
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Optional<String> readTitle(URI uri, String contentType, InputStream body) throws IOException {
+        Charset charset = HtmlTitleScanner.toCharset(HtmlTitleScanner.charsetParameter(contentType));
+        HtmlTitleScanner scanner = new HtmlTitleScanner(charset, MAX_BODY_SIZE_512K);
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int read;
+        while (!scanner.isFull() && (read = body.read(chunk)) >= 0) {
+            if (scanner.feed(chunk, 0, read)) {
+                // closing the body stops the download
+                return scanner.getTitle();
+            }
         }
+        return parseTitle(uri, scanner);
     }
 
+    private static UrlPreview toImagePreview(ImageInfo info, String contentType, OptionalLong contentLength) {
+        StringBuilder message = new StringBuilder("^ ");
+        if (info.format() != null) {
+            message.append(info.format());
+        } else {
+            // the subtype, like AVIF for image/avif
+            message.append(contentType.substring("image/".length()).split(";", 2)[0].trim().toUpperCase(Locale.ROOT));
+        }
+        message.append(" image");
+        if (info.width() > 0) {
+            message.append(", ").append(info.width()).append('x').append(info.height());
+        }
+        contentLength.ifPresent(length -> message.append(", ").append(formatSize(length)));
+        return UrlPreview.message(message.toString());
+    }
+
+    private static UrlPreview toPdfPreview(PdfInfo info, OptionalLong contentLength) {
+        StringBuilder message = new StringBuilder("^ PDF");
+        if (info.title() != null) {
+            message.append(": '").append(StringUtils.abbreviate(info.title(), "(...)", 300)).append('\'');
+        }
+        message.append(", ").append(info.pages()).append(info.pages() == 1 ? " page" : " pages");
+        contentLength.ifPresent(length -> message.append(", ").append(formatSize(length)));
+        return info.title() == null
+                ? UrlPreview.message(message.toString())
+                : UrlPreview.titled(message.toString(), info.title());
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " bytes";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        if (bytes < 1024L * 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+        }
+        return String.format(Locale.ROOT, "%.1f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+
+    /**
+     * Falls back to a full parse of the bytes read.
+     */
+    private static Optional<String> parseTitle(URI uri, HtmlTitleScanner scanner) throws IOException {
+        Charset charset = scanner.getDeclaredCharset();
+        String title = Jsoup.parse(new ByteArrayInputStream(scanner.getBytes()), charset == null ? null : charset.name(),
+                        uri.toString())
+                .title();
+        return Optional.of(title).filter(t -> !t.isEmpty());
+    }
+
+    /**
+     * Content types Jsoup would parse.
+     */
+    private static boolean isHtml(String contentType) {
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.isEmpty() || type.startsWith("text/") || type.startsWith("application/xml")
+                || type.matches("application/\\S+\\+xml.*");
+    }
+
+    private static void close(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static class NotFoundException extends RuntimeException {
+    }
 }
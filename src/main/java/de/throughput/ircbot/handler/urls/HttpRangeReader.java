@@ -0,0 +1,190 @@
+package de.throughput.ircbot.handler.urls;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadView;
+
+import de.throughput.ircbot.HttpService;
+
+/**
+ * Random access to a remote file with HTTP range requests.
+ * <p>
+ * The file is read in blocks, which are fetched when first read and kept. Reading fails once more than the
+ * given number of bytes would have to be fetched, or after the deadline.
+ */
+final class HttpRangeReader implements RandomAccessRead {
+
+    static final int BLOCK_SIZE = 32 * 1024;
+
+    private final HttpService httpService;
+    private final HttpRequest request;
+    private final long length;
+    private final long maxBytes;
+    private final long deadline;
+
+    private final Map<Long, byte[]> blocks = new HashMap<>();
+    private long fetched;
+    private long position;
+    private boolean closed;
+
+    /**
+     * @param httpService for the range requests
+     * @param request     request for the whole file, the template for the range requests
+     * @param length      the length of the file
+     * @param head        the first bytes of the file, already read
+     * @param maxBytes    number of bytes to fetch at most, including the head
+     * @param deadline    time in milliseconds after which no more blocks are fetched
+     */
+    HttpRangeReader(HttpService httpService, HttpRequest request, long length, byte[] head, long maxBytes,
+            long deadline) {
+        this.httpService = httpService;
+        this.request = request;
+        this.length = length;
+        this.maxBytes = maxBytes;
+        this.deadline = deadline;
+        if (head.length == Math.min(BLOCK_SIZE, length)) {
+            blocks.put(0L, head);
+        }
+        this.fetched = head.length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        if (position >= length) {
+            return -1;
+        }
+        byte[] block = block(position / BLOCK_SIZE);
+        int value = block[(int) (position % BLOCK_SIZE)] & 0xff;
+        position++;
+        return value;
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int len) throws IOException {
+        checkClosed();
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            return -1;
+        }
+        int count = (int) Math.min(len, length - position);
+        int copied = 0;
+        while (copied < count) {
+            byte[] block = block(position / BLOCK_SIZE);
+            int inBlock = (int) (position % BLOCK_SIZE);
+            int chunk = Math.min(count - copied, block.length - inBlock);
+            System.arraycopy(block, inBlock, b, offset + copied, chunk);
+            copied += chunk;
+            position += chunk;
+        }
+        return copied;
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+        checkClosed();
+        return position;
+    }
+
+    @Override
+    public void seek(long newPosition) throws IOException {
+        checkClosed();
+        if (newPosition < 0) {
+            throw new IOException("Invalid position " + newPosition);
+        }
+        position = Math.min(newPosition, length);
+    }
+
+    @Override
+    public long length() throws IOException {
+        checkClosed();
+        return length;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        checkClosed();
+        return position >= length;
+    }
+
+    @Override
+    public RandomAccessReadView createView(long startPosition, long streamLength) throws IOException {
+        checkClosed();
+        return new RandomAccessReadView(this, startPosition, streamLength);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        blocks.clear();
+    }
+
+    /**
+     * @return the number of bytes fetched so far
+     */
+    long getFetched() {
+        return fetched;
+    }
+
+    private byte[] block(long index) throws IOException {
+        byte[] block = blocks.get(index);
+        if (block == null) {
+            block = fetch(index);
+            blocks.put(index, block);
+        }
+        return block;
+    }
+
+    private byte[] fetch(long index) throws IOException {
+        long start = index * BLOCK_SIZE;
+        int size = (int) Math.min(BLOCK_SIZE, length - start);
+        if (fetched + size > maxBytes) {
+            throw new IOException("More than " + maxBytes + " bytes needed");
+        }
+        if (System.currentTimeMillis() > deadline) {
+            throw new IOException("Deadline passed");
+        }
+        fetched += size;
+        HttpRequest rangeRequest = HttpRequest.newBuilder(request, (name, value) -> true)
+                .setHeader("Range", "bytes=" + start + "-" + (start + size - 1))
+                .build();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpService.sendAsync(rangeRequest, BodyHandlers.ofInputStream()).join();
+        } catch (CompletionException e) {
+            throw new IOException(e.getCause());
+        }
+        try (InputStream body = new DeadlineInputStream(response.body(), deadline - System.currentTimeMillis())) {
+            // closing the body stops the download if the server sends the whole file
+            if (response.statusCode() != 206
+                    || !response.headers().firstValue("Content-Range").orElse("").startsWith("bytes " + start + "-")) {
+                throw new IOException("Range request answered with status " + response.statusCode());
+            }
+            byte[] block = body.readNBytes(size);
+            if (block.length != size) {
+                throw new IOException("Range response too short");
+            }
+            return block;
+        }
+    }
+
+    private void checkClosed() throws IOException {
+        if (closed) {
+            throw new IOException("Reader is closed");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package de.throughput.ircbot.handler.urls;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.apache.commons.imaging.ImageFormat;
+import org.apache.commons.imaging.ImageFormats;
+import org.apache.commons.imaging.Imaging;
+
+/**
+ * Format and dimensions of an image, read from its first bytes.
+ *
+ * @param format format name, or {@code null} if unknown
+ * @param width  width in pixels, or 0 if unknown
+ * @param height height in pixels, or 0 if unknown
+ */
+record ImageInfo(String format, int width, int height) {
+
+    private static final int FIRST_READ_BYTES = 16 * 1024;
+    private static final int MAX_BYTES = 64 * 1024;
+
+    /**
+     * Reads the image info from the start of the body. At most {@value #MAX_BYTES} bytes are read.
+     *
+     * @param body the body of the image response, which must end at the read deadline
+     * @return the image info, with unknown values if the image can't be parsed
+     */
+    static ImageInfo read(InputStream body) throws IOException {
+        byte[] head = body.readNBytes(FIRST_READ_BYTES);
+        ImageInfo info = parse(head);
+        if (info.width == 0 && head.length == FIRST_READ_BYTES) {
+            // JPEGs may have large metadata before the frame header
+            byte[] more = body.readNBytes(MAX_BYTES - FIRST_READ_BYTES);
+            head = Arrays.copyOf(head, head.length + more.length);
+            System.arraycopy(more, 0, head, FIRST_READ_BYTES, more.length);
+            info = parse(head);
+        }
+        return info;
+    }
+
+    private static ImageInfo parse(byte[] bytes) {
+        String format = null;
+        try {
+            ImageFormat imageFormat = Imaging.guessFormat(bytes);
+            if (imageFormat != ImageFormats.UNKNOWN) {
+                format = imageFormat.getName();
+            }
+        } catch (Exception e) {
+            // unknown format
+        }
+        try {
+            Dimension size = Imaging.getImageSize(bytes);
+            return new ImageInfo(format, size.width, size.height);
+        } catch (Exception e) {
+            // truncated or unsupported image
+            return new ImageInfo(format, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package de.throughput.ircbot.handler.urls;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+import java.util.OptionalLong;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.throughput.ircbot.HttpService;
+
+/**
+ * Title and page count of a PDF document.
+ * <p>
+ * Small documents are read in full. Larger documents are read with range requests, so only the trailer, the
+ * cross reference table, the document info and the page tree root are downloaded. Either way, no more than
+ * {@value #MAX_BYTES} bytes are read.
+ *
+ * @param title title from the document info, or {@code null} if there is none
+ * @param pages number of pages
+ */
+record PdfInfo(String title, int pages) {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PdfInfo.class);
+
+    private static final int MAX_BYTES = 1024 * 1024;
+    private static final long READ_TIMEOUT_MS = 5000;
+
+    /**
+     * Reads the PDF info.
+     *
+     * @param httpService   for range requests
+     * @param response      the response for the document
+     * @param body          the body of the response, which must end at the read deadline
+     * @param contentLength the length of the document, if known
+     * @return the PDF info, or empty if it can't be read within the limits
+     */
+    static Optional<PdfInfo> read(HttpService httpService, HttpResponse<InputStream> response, InputStream body,
+            OptionalLong contentLength) {
+        try {
+            RandomAccessRead document;
+            if (contentLength.isPresent() && contentLength.getAsLong() > MAX_BYTES) {
+                if (!response.headers().firstValue("Accept-Ranges").orElse("").contains("bytes")) {
+                    return Optional.empty();
+                }
+                byte[] head = body.readNBytes(HttpRangeReader.BLOCK_SIZE);
+                // stops the download of the whole document
+                body.close();
+                document = new HttpRangeReader(httpService, response.request(), contentLength.getAsLong(), head,
+                        MAX_BYTES, System.currentTimeMillis() + READ_TIMEOUT_MS);
+            } else {
+                byte[] bytes = body.readNBytes(MAX_BYTES + 1);
+                if (bytes.length > MAX_BYTES) {
+                    return Optional.empty();
+                }
+                document = new RandomAccessReadBuffer(bytes);
+            }
+            return Optional.of(parse(document));
+        } catch (IOException e) {
+            LOG.debug("failed to read PDF {}: {}", response.uri(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static PdfInfo parse(RandomAccessRead document) throws IOException {
+        try (PDDocument pdf = Loader.loadPDF(document)) {
+            return new PdfInfo(StringUtils.trimToNull(pdf.getDocumentInformation().getTitle()),
+                    pdf.getNumberOfPages());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.throughput.ircbot.handler.urls;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Brings URLs which point to the same resource into the same form, to be used as cache key.
+ * <p>
+ * Scheme and host are lower cased, default ports, fragments and tracking parameters are removed, and
+ * YouTube video URLs are rewritten to their watch URL.
+ */
+public final class UrlCanonicalizer {
+
+    private static final Set<String> TRACKING_PARAMETERS = Set.of(
+            "fbclid", "gclid", "dclid", "msclkid", "igshid", "mc_cid", "mc_eid", "yclid", "_hsenc", "_hsmi");
+
+    private static final Set<String> YOUTUBE_HOSTS = Set.of(
+            "youtube.com", "www.youtube.com", "m.youtube.com", "music.youtube.com");
+
+    private static final Pattern YOUTUBE_PATH_ID = Pattern.compile("^/(?:v|embed|shorts|live)/([\\w-]+)");
+    private static final Pattern YOUTUBE_QUERY_ID = Pattern.compile("(?:^|&)v=([\\w-]+)");
+
+    private UrlCanonicalizer() {
+    }
+
+    /**
+     * @param url a URL
+     * @return the canonical form of the URL, or the URL itself if it can't be parsed
+     */
+    public static String canonicalize(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return url;
+        }
+        if (uri.getScheme() == null || uri.getRawAuthority() == null || uri.getHost() == null) {
+            return url;
+        }
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+
+        String youtubeId = youtubeId(host, uri.getRawPath(), uri.getRawQuery());
+        if (youtubeId != null) {
+            return "https://www.youtube.com/watch?v=" + youtubeId;
+        }
+
+        StringBuilder canonical = new StringBuilder(url.length()).append(scheme).append("://");
+        if (uri.getRawUserInfo() != null) {
+            canonical.append(uri.getRawUserInfo()).append('@');
+        }
+        canonical.append(host);
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            canonical.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        canonical.append(path == null || path.isEmpty() ? "/" : path);
+        String query = stripTracking(uri.getRawQuery());
+        if (!query.isEmpty()) {
+            canonical.append('?').append(query);
+        }
+        return canonical.toString();
+    }
+
+    private static String youtubeId(String host, String path, String query) {
+        if (host.equals("youtu.be")) {
+            return path != null && path.length() > 1 ? path.substring(1).split("/", 2)[0] : null;
+        }
+        if (!YOUTUBE_HOSTS.contains(host) || path == null) {
+            return null;
+        }
+        Matcher pathMatcher = YOUTUBE_PATH_ID.matcher(path);
+        if (pathMatcher.find()) {
+            return pathMatcher.group(1);
+        }
+        if (path.equals("/watch") && query != null) {
+            Matcher queryMatcher = YOUTUBE_QUERY_ID.matcher(query);
+            if (queryMatcher.find()) {
+                return queryMatcher.group(1);
+            }
+        }
+        return null;
+    }
+
+    private static String stripTracking(String query) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder(query.length());
+        for (String parameter : query.split("&")) {
+            String name = parameter.split("=", 2)[0].toLowerCase(Locale.ROOT);
+            if (parameter.isEmpty() || name.startsWith("utm_") || TRACKING_PARAMETERS.contains(name)) {
+                continue;
+            }
+            if (!result.isEmpty()) {
+                result.append('&');
+            }
+            result.append(parameter);
+        }
+        return result.toString();
+    }
+}
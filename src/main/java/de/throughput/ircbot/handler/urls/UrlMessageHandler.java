@@ -1,53 +1,224 @@
 package de.throughput.ircbot.handler.urls;
 
 import de.throughput.ircbot.IrcBotConfig;
+import de.throughput.ircbot.api.CaseMapping;
+import de.throughput.ircbot.api.MessageFilter;
 import de.throughput.ircbot.api.MessageHandler;
-import lombok.RequiredArgsConstructor;
+import de.throughput.ircbot.api.ParsedMessage;
+import de.throughput.ircbot.handler.TitleEvent;
 import org.pircbotx.hooks.events.MessageEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 
 /**
  * Handles messages with URLs by passing the URLs to {@link UrlProcessor}s.
+ * <p>
+ * All URLs of a message are processed concurrently. The previews are sent in the order of the URLs, and
+ * previews which aren't ready when the deadline passes are dropped. Previews are cached by canonical URL.
+ * <p>
+ * URLs are only matched against the patterns of processors for their host, and of processors for any host.
+ * <p>
+ * URLs which another user posted on the channel within the last day aren't fetched again; the user is told
+ * who posted them.
  */
 @Component
-@RequiredArgsConstructor
 public class UrlMessageHandler implements MessageHandler {
 
+    private static final Logger LOG = LoggerFactory.getLogger(UrlMessageHandler.class);
+
+    private static final MessageFilter MESSAGE_FILTER = MessageFilter.builder()
+            .containsUrl()
+            .build();
+
+    private static final long PREVIEW_DEADLINE_MS = 5000;
+    private static final long REPOST_WINDOW_MS = TimeUnit.DAYS.toMillis(1);
+
     private final IrcBotConfig botConfig;
-    private final List<UrlProcessor> urlProcessors;
     private final HtmlTitleUrlProcessor htmlTitleFallback;
+    private final UrlPreviewCache previewCache;
+    private final UrlRepostIndex repostIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    /**
+     * Processors by host, including the processors for any host, in the order of the processors.
+     */
+    private final Map<String, List<UrlProcessor>> urlProcessorsByHost;
+    /**
+     * Processors for any host, for hosts without specific processors.
+     */
+    private final List<UrlProcessor> anyHostUrlProcessors;
+
+    public UrlMessageHandler(IrcBotConfig botConfig, List<UrlProcessor> urlProcessors,
+            HtmlTitleUrlProcessor htmlTitleFallback, UrlPreviewCache previewCache, UrlRepostIndex repostIndex,
+            ApplicationEventPublisher eventPublisher) {
+        this.botConfig = botConfig;
+        this.htmlTitleFallback = htmlTitleFallback;
+        this.previewCache = previewCache;
+        this.repostIndex = repostIndex;
+        this.eventPublisher = eventPublisher;
+        this.anyHostUrlProcessors = urlProcessors.stream()
+                .filter(urlProcessor -> urlProcessor.getHosts().isEmpty())
+                .toList();
+        Set<String> hosts = new LinkedHashSet<>();
+        urlProcessors.forEach(urlProcessor -> hosts.addAll(urlProcessor.getHosts()));
+        Map<String, List<UrlProcessor>> byHost = new HashMap<>();
+        for (String host : hosts) {
+            byHost.put(host, urlProcessors.stream()
+                    .filter(urlProcessor -> urlProcessor.getHosts().isEmpty() || urlProcessor.getHosts().contains(host))
+                    .toList());
+        }
+        this.urlProcessorsByHost = Map.copyOf(byHost);
+    }
 
     @Override
-    public boolean onMessage(MessageEvent event) {
-        UrlParser.streamUrls(event.getMessage())
-                .forEach(urlString -> {
-                    if (botConfig.getTalkChannels()
-                            .contains(event.getChannel()
-                                    .getName())) {
-                        AtomicBoolean processed = new AtomicBoolean(false);
-                        for (UrlProcessor urlProcessor : urlProcessors) {
-                            urlProcessor.getUrlPatterns()
-                                    .stream()
-                                    .map(pattern -> pattern.matcher(urlString))
-                                    .filter(Matcher::matches)
-                                    .findFirst()
-                                    .ifPresent(matcher -> {
-                                        urlProcessor.process(matcher, event);
-                                        processed.set(true);
-                                    });
-                        }
-                        if (!processed.get()) {
-                            htmlTitleFallback.process(urlString, event);
-                        }
-                    }
-                });
+    public boolean onMessage(MessageEvent event, ParsedMessage message) {
+        if (!botConfig.getTalkChannels().contains(event.getChannel().getName())) {
+            return false;
+        }
+        List<CompletableFuture<List<UrlPreview>>> previews = UrlParser.streamUrls(message.getMessage())
+                .map(UrlCanonicalizer::canonicalize)
+                .distinct()
+                .map(url -> repostIndex.post(message.getChannel(), message.getNick(), url)
+                        .filter(post -> isRepost(post, message.getNick()))
+                        .map(post -> CompletableFuture.completedFuture(List.of(UrlPreview.reply(renderRepost(post)))))
+                        .orElseGet(() -> previewCache.get(url, this::process)))
+                .toList();
+
+        // send the previews of each URL once all previews before them have been sent or dropped
+        CompletableFuture<Void> previous = CompletableFuture.completedFuture(null);
+        for (CompletableFuture<List<UrlPreview>> preview : previews) {
+            // completes a copy, the cache shares its futures
+            CompletableFuture<List<UrlPreview>> limited = preview
+                    .exceptionally(e -> {
+                        LOG.debug("URL preview failed: {}", e.getMessage());
+                        return List.of();
+                    })
+                    .completeOnTimeout(List.of(), PREVIEW_DEADLINE_MS, TimeUnit.MILLISECONDS);
+            previous = previous.thenCombine(limited, (ignored, result) -> result)
+                    .thenAccept(result -> result.forEach(p -> send(event, p)))
+                    .exceptionally(e -> {
+                        LOG.warn("failed to send URL preview", e);
+                        return null;
+                    });
+        }
         return false;
     }
 
+    private CompletableFuture<List<UrlPreview>> process(String urlString) {
+        List<CompletableFuture<Optional<UrlPreview>>> previews = new ArrayList<>();
+        for (UrlProcessor urlProcessor : urlProcessorsFor(urlString)) {
+            urlProcessor.getUrlPatterns()
+                    .stream()
+                    .map(pattern -> pattern.matcher(urlString))
+                    .filter(Matcher::matches)
+                    .findFirst()
+                    .ifPresent(matcher -> previews.add(start(() -> urlProcessor.process(matcher))));
+        }
+        if (previews.isEmpty()) {
+            previews.add(start(() -> htmlTitleFallback.process(urlString)));
+        }
+        return CompletableFuture.allOf(previews.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> previews.stream()
+                        .map(CompletableFuture::join)
+                        .flatMap(Optional::stream)
+                        .toList());
+    }
+
+    /**
+     * @return the processors whose patterns are matched against the URL, in the order of the processors
+     */
+    List<UrlProcessor> urlProcessorsFor(String url) {
+        return urlProcessorsByHost.getOrDefault(host(url), anyHostUrlProcessors);
+    }
+
+    /**
+     * @return {@code true} if another user posted the URL recently
+     */
+    private static boolean isRepost(UrlPost post, String nick) {
+        return System.currentTimeMillis() - post.timestamp() < REPOST_WINDOW_MS
+                && !CaseMapping.caseFold(post.nick()).equals(CaseMapping.caseFold(nick));
+    }
+
+    private static String renderRepost(UrlPost post) {
+        Duration ago = Duration.ofMillis(Math.max(0, System.currentTimeMillis() - post.timestamp()));
+        String renderedAgo;
+        if (ago.toDays() > 0) {
+            renderedAgo = ago.toDays() + "d";
+        } else if (ago.toHours() > 0) {
+            renderedAgo = ago.toHours() + "h";
+        } else if (ago.toMinutes() > 0) {
+            renderedAgo = ago.toMinutes() + "m";
+        } else {
+            renderedAgo = ago.toSeconds() + "s";
+        }
+        return String.format("already posted by %s %s ago", post.nick(), renderedAgo);
+    }
+
+    /**
+     * @return the host of the URL in lower case, or an empty string if there is none
+     */
+    static String host(String url) {
+        int start = url.indexOf("://");
+        if (start < 0) {
+            return "";
+        }
+        start += 3;
+        int end = start;
+        while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        int userInfoEnd = url.lastIndexOf('@', end - 1);
+        if (userInfoEnd >= start) {
+            start = userInfoEnd + 1;
+        }
+        int port = url.lastIndexOf(':', end - 1);
+        if (port >= start && url.lastIndexOf(']', end - 1) < port) {
+            end = port;
+        }
+        return url.substring(start, end)
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static CompletableFuture<Optional<UrlPreview>> start(
+            Supplier<CompletableFuture<Optional<UrlPreview>>> processing) {
+        try {
+            return processing.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void send(MessageEvent event, UrlPreview preview) {
+        if (preview.reply()) {
+            event.respond(preview.message());
+        } else {
+            event.getChannel().send().message(preview.message());
+        }
+        if (preview.title() != null) {
+            eventPublisher.publishEvent(new TitleEvent(this, preview.title()));
+        }
+    }
+
+    @Override
+    public MessageFilter getMessageFilter() {
+        return MESSAGE_FILTER;
+    }
+
     @Override
     public boolean isOnlyTalkChannels() {
         return false;
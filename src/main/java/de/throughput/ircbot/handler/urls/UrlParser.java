@@ -1,27 +1,67 @@
 package de.throughput.ircbot.handler.urls;
 
-import java.net.MalformedURLException;
-import java.net.URISyntaxException;
-import java.net.URL;
-import java.util.Iterator;
-import java.util.NoSuchElementException;
-import java.util.Spliterator;
-import java.util.Spliterators;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 /**
- * Utility class which provides a stream of valid URLs in a text.
+ * Utility class which finds valid URLs in a text.
+ * <p>
+ * The text is scanned once for http(s) and ftp URLs. A URL ends before whitespace or a character which isn't
+ * allowed in a URI, like the closing bracket in {@code <https://example.com>}. Punctuation at the end of a
+ * URL is taken to belong to the sentence, and so are closing parentheses unless they are balanced within the
+ * URL, like in {@code https://en.wikipedia.org/wiki/Java_(programming_language)}.
  */
 public class UrlParser {
 
-    private static final Pattern URL_PATTERN = Pattern.compile("((?:ht|f)tps?://\\S+)");
+    private static final String[] SCHEMES = {"https", "http", "ftp"};
+    private static final String SCHEME_SEPARATOR = "://";
+    private static final String TRAILING_PUNCTUATION = ".,;:!?'";
+
+    /**
+     * ASCII characters allowed in a URI besides '%', '#', '[' and ']', which are handled separately.
+     */
+    private static final boolean[] URI_CHARS = new boolean[128];
+
+    static {
+        for (char c : ("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789"
+                + "-._~!$&'()*+,;=:@/?").toCharArray()) {
+            URI_CHARS[c] = true;
+        }
+    }
 
     private UrlParser() {
     }
 
+    /**
+     * Finds all valid http(s) and ftp URLs in the given text.
+     *
+     * @param text text
+     * @return the URLs, in the order of the text
+     */
+    public static List<UrlSpan> findUrls(String text) {
+        List<UrlSpan> urls = null;
+        int from = 0;
+        int separator;
+        while ((separator = text.indexOf(SCHEME_SEPARATOR, from)) >= 0) {
+            int authorityStart = separator + SCHEME_SEPARATOR.length();
+            int start = schemeStart(text, separator);
+            int scanned = start < 0 ? authorityStart : scan(text, authorityStart);
+            if (scanned > authorityStart) {
+                int end = trimTrailing(text, authorityStart, scanned);
+                if (validAuthority(text, authorityStart, end)) {
+                    if (urls == null) {
+                        urls = new ArrayList<>();
+                    }
+                    urls.add(new UrlSpan(text, start, end));
+                }
+            }
+            // a URL in a URL, like a redirect target, belongs to the outer URL
+            from = Math.max(scanned, authorityStart);
+        }
+        return urls == null ? List.of() : urls;
+    }
+
     /**
      * Returns a stream consisting of all valid http(s) and ftp URLs in the given text.
      *
@@ -29,68 +69,132 @@ public class UrlParser {
      * @return stream of URLs
      */
     public static Stream<String> streamUrls(String text) {
-        Iterator<String> matchIterator = new MatchIterator(URL_PATTERN.matcher(text));
+        return findUrls(text).stream()
+                .map(UrlSpan::url);
+    }
 
-        return StreamSupport
-                .stream(Spliterators.spliteratorUnknownSize(matchIterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
-                .filter(UrlParser::validUrl);
+    /**
+     * @return the index of the scheme before the separator, or -1 if it isn't a supported scheme
+     */
+    private static int schemeStart(String text, int separator) {
+        for (String scheme : SCHEMES) {
+            int start = separator - scheme.length();
+            if (start >= 0 && text.startsWith(scheme, start)) {
+                return start;
+            }
+        }
+        return -1;
     }
 
     /**
-     * Checks if the given string is a valid URL.
+     * Scans the characters allowed in a URI.
      *
-     * @param surl string
-     * @return true if the URL can be parsed
+     * @return the index after the last character, or {@code from} if the URL contains an invalid escape
      */
-    private static boolean validUrl(String surl) {
-        try {
-            URL url = new URL(surl);
-            url.toURI();
-            return true;
-        } catch (MalformedURLException | URISyntaxException e) {
-            return false;
+    private static int scan(String text, int from) {
+        boolean authority = true;
+        boolean fragment = false;
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= text.length() || !isHexDigit(text.charAt(i + 1)) || !isHexDigit(text.charAt(i + 2))) {
+                    return from;
+                }
+                i += 3;
+                continue;
+            }
+            if (c == '#') {
+                if (fragment) {
+                    break;
+                }
+                fragment = true;
+                authority = false;
+            } else if (c == '/' || c == '?') {
+                authority = false;
+            } else if (c == '[' || c == ']') {
+                // IPv6 addresses
+                if (!authority) {
+                    break;
+                }
+            } else if (c < 128 ? !URI_CHARS[c] : Character.isISOControl(c) || Character.isSpaceChar(c)) {
+                break;
+            }
+            i++;
         }
+        return i;
     }
 
     /**
-     * An iterator which iterates matches.
+     * Removes punctuation and unbalanced closing parentheses at the end.
+     *
+     * @return the new end
      */
-    private static class MatchIterator implements Iterator<String> {
-
-        private final Matcher matcher;
-        private String nextMatch;
-        private boolean end;
-
-        public MatchIterator(Matcher matcher) {
-            this.matcher = matcher;
+    private static int trimTrailing(String text, int from, int end) {
+        int unbalanced = 0;
+        for (int i = from; i < end; i++) {
+            if (text.charAt(i) == '(') {
+                unbalanced--;
+            } else if (text.charAt(i) == ')') {
+                unbalanced++;
+            }
         }
+        while (end > from) {
+            char last = text.charAt(end - 1);
+            if (last == ')' && unbalanced > 0) {
+                unbalanced--;
+            } else if (TRAILING_PUNCTUATION.indexOf(last) < 0) {
+                break;
+            }
+            end--;
+        }
+        return end;
+    }
 
-        @Override
-        public boolean hasNext() {
-            if (end) {
+    /**
+     * Checks for a host and a numeric port, if there is one.
+     */
+    private static boolean validAuthority(String text, int from, int end) {
+        int authorityEnd = from;
+        while (authorityEnd < end && "/?#".indexOf(text.charAt(authorityEnd)) < 0) {
+            authorityEnd++;
+        }
+        int hostStart = text.lastIndexOf('@', authorityEnd - 1) + 1;
+        if (hostStart < from) {
+            hostStart = from;
+        }
+        int hostEnd = hostStart;
+        if (hostStart < authorityEnd && text.charAt(hostStart) == '[') {
+            hostEnd = text.indexOf(']', hostStart);
+            if (hostEnd < 0 || hostEnd >= authorityEnd) {
                 return false;
             }
-            if (nextMatch != null) {
-                return true;
-            }
-            if (matcher.find()) {
-                nextMatch = matcher.group(1);
-            } else {
-                end = true;
+            hostEnd++;
+        } else {
+            while (hostEnd < authorityEnd && text.charAt(hostEnd) != ':') {
+                if (text.charAt(hostEnd) == '[' || text.charAt(hostEnd) == ']') {
+                    return false;
+                }
+                hostEnd++;
             }
-            return !end;
         }
-
-        @Override
-        public String next() {
-            if (!hasNext()) {
-                throw new NoSuchElementException();
+        if (hostEnd == hostStart) {
+            return false;
+        }
+        if (hostEnd < authorityEnd) {
+            if (text.charAt(hostEnd) != ':') {
+                return false;
+            }
+            for (int i = hostEnd + 1; i < authorityEnd; i++) {
+                if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                    return false;
+                }
             }
-            String match = nextMatch;
-            nextMatch = null;
-            return match;
         }
-
+        return true;
     }
 
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
 }
@@ -0,0 +1,11 @@
+package de.throughput.ircbot.handler.urls;
+
+/**
+ * The first post of a URL on a channel.
+ *
+ * @param channel   the channel
+ * @param nick      nick of the user who posted the URL
+ * @param timestamp time of the post in milliseconds
+ */
+public record UrlPost(String channel, String nick, long timestamp) {
+}
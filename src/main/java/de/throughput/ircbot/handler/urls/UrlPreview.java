@@ -0,0 +1,25 @@
+package de.throughput.ircbot.handler.urls;
+
+import de.throughput.ircbot.handler.TitleEvent;
+
+/**
+ * Preview of a URL, to be sent to the channel.
+ *
+ * @param message the message to send
+ * @param title   title of the linked page, published as {@link TitleEvent}; {@code null} if there is none
+ * @param reply   {@code true} if the message is addressed to the user who posted the URL
+ */
+public record UrlPreview(String message, String title, boolean reply) {
+
+    public static UrlPreview titled(String message, String title) {
+        return new UrlPreview(message, title, false);
+    }
+
+    public static UrlPreview message(String message) {
+        return new UrlPreview(message, null, false);
+    }
+
+    public static UrlPreview reply(String message) {
+        return new UrlPreview(message, null, true);
+    }
+}
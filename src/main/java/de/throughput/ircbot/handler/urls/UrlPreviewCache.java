@@ -0,0 +1,127 @@
+package de.throughput.ircbot.handler.urls;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of URL previews by canonical URL.
+ * <p>
+ * A preview is loaded once even if the URL is posted again while it is being loaded. Previews are kept for
+ * an hour; URLs without a preview, like 404s and non-HTML content, are kept for ten minutes. Failed loads
+ * are not cached, and loads taking longer than {@value #LOAD_TIMEOUT_MILLIS} ms fail.
+ */
+@Component
+public class UrlPreviewCache {
+
+    private static final int MAX_ENTRIES = 1000;
+    private static final long POSITIVE_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final long NEGATIVE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long LOAD_TIMEOUT_MILLIS = 30_000;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private final long loadTimeoutMillis;
+
+    public UrlPreviewCache() {
+        this(LOAD_TIMEOUT_MILLIS);
+    }
+
+    UrlPreviewCache(long loadTimeoutMillis) {
+        this.loadTimeoutMillis = loadTimeoutMillis;
+    }
+
+    /**
+     * Gets the previews of a URL from the cache, or loads them.
+     *
+     * @param canonicalUrl canonical URL, see {@link UrlCanonicalizer}
+     * @param loader       loads the previews of the URL
+     * @return the previews
+     */
+    public CompletableFuture<List<UrlPreview>> get(String canonicalUrl,
+            Function<String, CompletableFuture<List<UrlPreview>>> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(canonicalUrl);
+            if (entry != null && entry.expiresAt > now) {
+                hits.increment();
+                return entry.previews;
+            }
+            misses.increment();
+            entry = new Entry(new CompletableFuture<>(), now + loadTimeoutMillis);
+            entries.put(canonicalUrl, entry);
+        }
+        Entry loading = entry;
+        CompletableFuture<List<UrlPreview>> loaded;
+        try {
+            loaded = loader.apply(canonicalUrl);
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        // a load that never completes would answer every later lookup of the URL
+        loaded.orTimeout(loadTimeoutMillis, TimeUnit.MILLISECONDS).whenComplete((previews, e) -> {
+            if (e != null) {
+                synchronized (entries) {
+                    entries.remove(canonicalUrl, loading);
+                }
+                loading.previews.completeExceptionally(e);
+            } else {
+                loading.expiresAt = System.currentTimeMillis() + (isNegative(previews) ? NEGATIVE_TTL_MILLIS : POSITIVE_TTL_MILLIS);
+                loading.previews.complete(previews);
+            }
+        });
+        return loading.previews;
+    }
+
+    private static boolean isNegative(List<UrlPreview> previews) {
+        return previews.isEmpty() || previews.stream().anyMatch(UrlPreview::reply);
+    }
+
+    /**
+     * @return number of lookups answered from the cache, including URLs still being loaded
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups which had to load the URL
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<List<UrlPreview>> previews;
+        /**
+         * While loading, the time at which the load fails.
+         */
+        private volatile long expiresAt;
+
+        Entry(CompletableFuture<List<UrlPreview>> previews, long expiresAt) {
+            this.previews = previews;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
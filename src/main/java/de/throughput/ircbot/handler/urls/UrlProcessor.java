@@ -1,12 +1,11 @@
 package de.throughput.ircbot.handler.urls;
 
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.pircbotx.hooks.events.MessageEvent;
-import org.pircbotx.hooks.types.GenericMessageEvent;
-
 /**
  * Interface for an URL processor.
  */
@@ -21,12 +20,24 @@ public interface UrlProcessor {
      */
     Set<Pattern> getUrlPatterns();
 
+    /**
+     * Return the hosts of the URLs the patterns can match, in lower case.
+     * <p>
+     * URLs of other hosts aren't matched against the patterns. If empty, the patterns are matched against
+     * all URLs.
+     *
+     * @return hosts
+     */
+    default Set<String> getHosts() {
+        return Set.of();
+    }
+
     /**
      * Process a match.
      *
      * @param matcher matcher which matched one of the patterns.
-     * @param event   matching message event
+     * @return the preview, or empty if there is none
      */
-    void process(Matcher matcher, MessageEvent event);
+    CompletableFuture<Optional<UrlPreview>> process(Matcher matcher);
 
 }
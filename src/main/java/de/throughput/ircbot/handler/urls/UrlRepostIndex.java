@@ -0,0 +1,229 @@
+package de.throughput.ircbot.handler.urls;
+
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import de.throughput.ircbot.api.CaseMapping;
+
+/**
+ * Remembers who posted a URL first on a channel, to detect reposts without fetching the URL again.
+ * <p>
+ * Posts are identified by a 64-bit hash of channel and canonical URL, and stored in the database for a year.
+ * A Bloom filter of all stored hashes answers most lookups of new URLs, and recent posts are kept in memory,
+ * so the database is only asked for old reposts and false positives. Memory use is fixed: the Bloom filter
+ * has 1 MB, and the recent posts are limited in number. The filter is rebuilt daily from the database, when
+ * posts older than a year are removed. New posts are buffered and written in batches.
+ */
+@Component
+public class UrlRepostIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UrlRepostIndex.class);
+
+    /**
+     * 1 MB; about 1% false positives at 900,000 posts.
+     */
+    private static final int BLOOM_FILTER_BITS = 1 << 23;
+    private static final int BLOOM_FILTER_HASHES = 7;
+    private static final int MAX_RECENT_POSTS = 10000;
+    private static final int RETENTION_DAYS = 365;
+    private static final int FLUSH_THRESHOLD = 100;
+
+    private final JdbcTemplate jdbc;
+    private final Map<Long, UrlPost> recentPosts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, UrlPost> eldest) {
+            return size() > MAX_RECENT_POSTS;
+        }
+    };
+    private final Map<Long, UrlPost> pending = new ConcurrentHashMap<>();
+    private BloomFilter postedHashes;
+
+    private final LongAdder recentHits = new LongAdder();
+    private final LongAdder filterMisses = new LongAdder();
+    private final LongAdder databaseLookups = new LongAdder();
+
+    public UrlRepostIndex(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        this.postedHashes = loadBloomFilter();
+    }
+
+    /**
+     * Records the post of a URL, unless it has been posted on the channel before.
+     *
+     * @param channel      the channel
+     * @param nick         nick of the user who posted the URL
+     * @param canonicalUrl canonical URL, see {@link UrlCanonicalizer}
+     * @return the first post of the URL on the channel, or empty if this is the first post or the database
+     * can't be asked
+     */
+    public Optional<UrlPost> post(String channel, String nick, String canonicalUrl) {
+        long hash = hash(CaseMapping.caseFold(channel), canonicalUrl);
+        UrlPost post = new UrlPost(channel, nick, System.currentTimeMillis());
+        boolean firstPost;
+        synchronized (recentPosts) {
+            UrlPost recent = recentPosts.get(hash);
+            if (recent != null) {
+                recentHits.increment();
+                return Optional.of(recent);
+            }
+            firstPost = !postedHashes.mightContain(hash);
+            if (firstPost) {
+                filterMisses.increment();
+                record(hash, post);
+            }
+        }
+        if (firstPost) {
+            flushIfFull();
+            return Optional.empty();
+        }
+        Optional<UrlPost> earlier;
+        try {
+            earlier = lookup(hash);
+        } catch (DataAccessException e) {
+            // previews are more important than repost detection
+            LOG.warn("failed to look up URL post, treating it as new: {}", e.getMessage());
+            return Optional.empty();
+        }
+        synchronized (recentPosts) {
+            if (earlier.isPresent()) {
+                recentPosts.put(hash, earlier.get());
+            } else {
+                // false positive of the Bloom filter
+                record(hash, post);
+            }
+        }
+        flushIfFull();
+        return earlier;
+    }
+
+    private void record(long hash, UrlPost post) {
+        recentPosts.put(hash, post);
+        postedHashes.add(hash);
+        pending.put(hash, post);
+    }
+
+    private void flushIfFull() {
+        if (pending.size() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    private Optional<UrlPost> lookup(long hash) {
+        UrlPost buffered = pending.get(hash);
+        if (buffered != null) {
+            return Optional.of(buffered);
+        }
+        databaseLookups.increment();
+        List<UrlPost> posts = jdbc.query("SELECT channel, nick, EXTRACT(EPOCH FROM timestamp) * 1000 "
+                        + "FROM url_post WHERE url_hash = ?",
+                (rs, rowNum) -> new UrlPost(rs.getString(1), rs.getString(2), rs.getLong(3)),
+                hash);
+        return posts.stream().findFirst();
+    }
+
+    /**
+     * Writes the buffered posts to the database.
+     */
+    @Scheduled(fixedDelay = 5000)
+    @PreDestroy
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, UrlPost>> posts = List.copyOf(pending.entrySet());
+        try {
+            jdbc.batchUpdate("INSERT INTO url_post (url_hash, channel, nick, timestamp) VALUES (?, ?, ?, ?) "
+                            + "ON CONFLICT (url_hash) DO NOTHING",
+                    posts.stream()
+                            .map(entry -> new Object[]{entry.getKey(), entry.getValue().channel(),
+                                    entry.getValue().nick(), new Timestamp(entry.getValue().timestamp())})
+                            .toList());
+        } catch (DataAccessException e) {
+            LOG.error("failed to write {} URL posts, will retry", posts.size(), e);
+            return;
+        }
+        posts.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Removes posts older than the retention period, and rebuilds the Bloom filter so it only has the
+     * remaining posts.
+     */
+    @Scheduled(fixedDelay = 24 * 60 * 60 * 1000, initialDelay = 60 * 60 * 1000)
+    public void prune() {
+        flush();
+        int deleted = jdbc.update("DELETE FROM url_post WHERE timestamp < NOW() - make_interval(days => ?)",
+                RETENTION_DAYS);
+        BloomFilter filter = loadBloomFilter();
+        synchronized (recentPosts) {
+            long cutOff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(RETENTION_DAYS);
+            recentPosts.values().removeIf(post -> post.timestamp() < cutOff);
+            // posts recorded while loading
+            recentPosts.keySet().forEach(filter::add);
+            pending.keySet().forEach(filter::add);
+            postedHashes = filter;
+        }
+        LOG.debug("removed {} old URL posts", deleted);
+    }
+
+    private BloomFilter loadBloomFilter() {
+        BloomFilter filter = new BloomFilter(BLOOM_FILTER_BITS, BLOOM_FILTER_HASHES);
+        jdbc.query("SELECT url_hash FROM url_post", (RowCallbackHandler) rs -> filter.add(rs.getLong(1)));
+        return filter;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of channel and URL, with the finalizer of SplitMix64 to spread the bits.
+     */
+    static long hash(String channel, String url) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hash(hash, channel);
+        hash = (hash ^ '\n') * 0x100000001b3L;
+        hash = hash(hash, url);
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static long hash(long hash, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            hash = (hash ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return number of reposts found in memory
+     */
+    public long getRecentHits() {
+        return recentHits.sum();
+    }
+
+    /**
+     * @return number of new URLs recognized by the Bloom filter
+     */
+    public long getFilterMisses() {
+        return filterMisses.sum();
+    }
+
+    /**
+     * @return number of lookups in the database
+     */
+    public long getDatabaseLookups() {
+        return databaseLookups.sum();
+    }
+}
@@ -0,0 +1,51 @@
+package de.throughput.ircbot.handler.urls;
+
+/**
+ * A URL within a text, given by its offsets. The URL is only copied out of the text when asked for.
+ *
+ * @param text  the text
+ * @param start index of the first character of the URL
+ * @param end   index after the last character of the URL
+ */
+public record UrlSpan(String text, int start, int end) implements CharSequence {
+
+    /**
+     * @return the URL
+     */
+    public String url() {
+        return text.substring(start, end);
+    }
+
+    /**
+     * @return the canonical form of the URL, see {@link UrlCanonicalizer}
+     */
+    public String canonical() {
+        return UrlCanonicalizer.canonicalize(url());
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return text.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > length() || from > to) {
+            throw new IndexOutOfBoundsException();
+        }
+        return new UrlSpan(text, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        return url();
+    }
+}
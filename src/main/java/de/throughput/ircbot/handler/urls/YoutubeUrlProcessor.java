@@ -1,34 +1,94 @@
 package de.throughput.ircbot.handler.urls;
 
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import lombok.RequiredArgsConstructor;
-import org.pircbotx.hooks.events.MessageEvent;
-import org.pircbotx.hooks.types.GenericMessageEvent;
-import org.springframework.context.ApplicationEventPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import com.google.api.services.youtube.YouTube;
 import com.google.api.services.youtube.model.Video;
 import com.google.api.services.youtube.model.VideoListResponse;
 
-import de.throughput.ircbot.handler.TitleEvent;
-
 /**
  * Processes YouTube URLs.
+ * <p>
+ * Video ids are collected for a short time and looked up with one API call, which costs one unit of the
+ * daily quota no matter how many ids it has. When the quota is nearly used up, the title is taken from the
+ * HTML page instead. Previews are cached by {@link UrlPreviewCache}, whose keys hold the video id.
  */
 @Component
-@RequiredArgsConstructor
 public class YoutubeUrlProcessor implements UrlProcessor {
 
+    private static final Logger LOG = LoggerFactory.getLogger(YoutubeUrlProcessor.class);
+
     private static final Pattern YOUTUBE_URL = Pattern.compile(
-            "https?://(?:youtu.be/|(?:www.youtube.com|youtube.com)/(?:v/|u/\\w/|embed/|shorts/|watch\\?v=))([^#\\&\\?]*).*");
+            "https?://(?:youtu.be/|(?:www.youtube.com|youtube.com)/(?:v/|u/\\w/|embed/|shorts/|watch\\?v=))([\\w-]+).*");
+
+    private static final long BATCH_WINDOW_MS = 150;
+    private static final int MAX_BATCH_SIZE = 50;
+    /**
+     * Share of the daily quota kept in reserve.
+     */
+    private static final double QUOTA_RESERVE = 0.05;
+    /**
+     * The quota is reset at midnight Pacific Time.
+     */
+    private static final ZoneId QUOTA_ZONE = ZoneId.of("America/Los_Angeles");
+
+    /**
+     * The YouTube client blocks, so requests are run on virtual threads.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Ends the batching windows.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        thread.setName("youtube-batcher");
+        return thread;
+    });
 
     private final YouTube youtube;
-    private final ApplicationEventPublisher eventPublisher;
+    private final HtmlTitleUrlProcessor htmlTitleFallback;
+    private final int dailyQuota;
+    private final Clock clock;
+
+    private Map<String, CompletableFuture<Optional<String>>> batch = new LinkedHashMap<>();
+
+    private LocalDate quotaDay;
+    private int quotaUsed;
+
+    @Autowired
+    public YoutubeUrlProcessor(YouTube youtube, HtmlTitleUrlProcessor htmlTitleFallback,
+            @Value("${youtube.quota.daily}") int dailyQuota) {
+        this(youtube, htmlTitleFallback, dailyQuota, Clock.systemUTC());
+    }
+
+    YoutubeUrlProcessor(YouTube youtube, HtmlTitleUrlProcessor htmlTitleFallback, int dailyQuota, Clock clock) {
+        this.youtube = youtube;
+        this.htmlTitleFallback = htmlTitleFallback;
+        this.dailyQuota = dailyQuota;
+        this.clock = clock;
+        this.quotaDay = LocalDate.ofInstant(clock.instant(), QUOTA_ZONE);
+    }
 
     @Override
     public Set<Pattern> getUrlPatterns() {
@@ -36,33 +96,103 @@ public class YoutubeUrlProcessor implements UrlProcessor {
     }
 
     @Override
-    public void process(Matcher matcher, MessageEvent event) {
-        getYoutubeInfo(matcher.group(1), event);
+    public Set<String> getHosts() {
+        return Set.of("youtu.be", "youtube.com", "www.youtube.com");
+    }
+
+    @Override
+    public CompletableFuture<Optional<UrlPreview>> process(Matcher matcher) {
+        if (getQuotaUsed() >= dailyQuota * (1 - QUOTA_RESERVE)) {
+            return htmlTitleFallback.process(matcher.group(0));
+        }
+        return lookupTitle(matcher.group(1))
+                .thenApply(title -> title.map(t -> UrlPreview.titled(String.format("^ YouTube: '%s'", t), t)));
+    }
+
+    /**
+     * Adds the id to the current batch.
+     *
+     * @return the title of the video, or empty if there is no such video
+     */
+    private CompletableFuture<Optional<String>> lookupTitle(String id) {
+        CompletableFuture<Optional<String>> title;
+        synchronized (this) {
+            title = batch.get(id);
+            if (title != null) {
+                return title;
+            }
+            title = new CompletableFuture<>();
+            batch.put(id, title);
+            if (batch.size() == 1) {
+                Map<String, CompletableFuture<Optional<String>>> window = batch;
+                SCHEDULER.schedule(() -> flush(window), BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+            }
+            if (batch.size() >= MAX_BATCH_SIZE) {
+                flush(batch);
+            }
+        }
+        return title;
+    }
+
+    /**
+     * Looks up the batch, unless it has already been looked up.
+     */
+    private void flush(Map<String, CompletableFuture<Optional<String>>> ids) {
+        synchronized (this) {
+            if (batch != ids) {
+                // the window of a full batch ended after the next batch was started
+                return;
+            }
+            batch = new LinkedHashMap<>();
+        }
+        EXECUTOR.execute(() -> getYoutubeInfo(ids));
     }
 
-    private void getYoutubeInfo(String id, MessageEvent event) {
+    private void getYoutubeInfo(Map<String, CompletableFuture<Optional<String>>> ids) {
         try {
+            useQuota();
             YouTube.Videos.List videosListByIdRequest = youtube.videos()
                     .list("snippet");
-            videosListByIdRequest.setId(id);
+            videosListByIdRequest.setId(String.join(",", ids.keySet()));
+            videosListByIdRequest.setMaxResults((long) MAX_BATCH_SIZE);
 
             VideoListResponse response = videosListByIdRequest.execute();
 
             List<Video> items = response.getItems();
+            if (items != null) {
+                for (Video video : items) {
+                    CompletableFuture<Optional<String>> title = ids.get(video.getId());
+                    if (title != null) {
+                        title.complete(Optional.of(video.getSnippet().getTitle()));
+                    }
+                }
+            }
+            // ids without a video
+            ids.values().forEach(title -> title.complete(Optional.empty()));
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("YouTube lookup of {} videos failed: {}", ids.size(), e.getMessage());
+            ids.values().forEach(title -> title.completeExceptionally(e));
+        }
+    }
 
-            if (!items.isEmpty()) {
-                Video video = response.getItems()
-                        .get(0);
-
-                String title = video.getSnippet()
-                        .getTitle();
+    private synchronized void useQuota() {
+        resetQuotaOnNewDay();
+        quotaUsed++;
+    }
 
-                event.getChannel().send().message(String.format("^ YouTube: '%s'", title));
+    /**
+     * @return quota units used today
+     */
+    public synchronized int getQuotaUsed() {
+        resetQuotaOnNewDay();
+        return quotaUsed;
+    }
 
-                eventPublisher.publishEvent(new TitleEvent(this, title));
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    private void resetQuotaOnNewDay() {
+        LocalDate today = LocalDate.ofInstant(clock.instant(), QUOTA_ZONE);
+        if (!today.equals(quotaDay)) {
+            quotaDay = today;
+            quotaUsed = 0;
         }
     }
 }
@@ -0,0 +1,13 @@
+CREATE TABLE url_post
+(
+    "url_hash"  BIGINT                   NOT NULL,
+    "channel"   VARCHAR(255)             NOT NULL,
+    "nick"      VARCHAR(255)             NOT NULL,
+    "timestamp" TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+
+    PRIMARY KEY (url_hash)
+);
+
+CREATE INDEX idx_url_post_timestamp ON url_post (timestamp);
+
+ALTER TABLE url_post OWNER TO ircbot;
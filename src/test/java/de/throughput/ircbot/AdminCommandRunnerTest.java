@@ -0,0 +1,198 @@
+package de.throughput.ircbot;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pircbotx.PircBotX;
+import org.pircbotx.User;
+import org.pircbotx.UserHostmask;
+import org.pircbotx.hooks.events.MessageEvent;
+import org.pircbotx.hooks.events.NickChangeEvent;
+import org.pircbotx.hooks.events.PartEvent;
+import org.pircbotx.hooks.events.PrivateMessageEvent;
+import org.pircbotx.hooks.events.QuitEvent;
+import org.pircbotx.hooks.events.ServerResponseEvent;
+import org.pircbotx.hooks.events.UnknownEvent;
+import org.pircbotx.output.OutputIRC;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+class AdminCommandRunnerTest {
+
+    private static final String BOT_NICK = "ircbot";
+    private static final String ADMIN = "db";
+
+    private PircBotX bot;
+    private OutputIRC output;
+    private PresenceIndex presenceIndex;
+    private AdminCommandRunner runner;
+
+    @BeforeEach
+    void setup() {
+        bot = mock(PircBotX.class);
+        when(bot.getNick()).thenReturn(BOT_NICK);
+        output = mock(OutputIRC.class);
+        when(bot.send()).thenReturn(output);
+        IrcBotConfig botConfig = mock(IrcBotConfig.class);
+        when(botConfig.getAdmins()).thenReturn(Set.of(ADMIN));
+        presenceIndex = new PresenceIndex();
+        runner = new AdminCommandRunner(botConfig, presenceIndex);
+    }
+
+    @Test
+    void accountTagAuthorizes() {
+        capabilities("account-tag");
+        Runnable execution = mock(Runnable.class);
+
+        runner.runPrivileged(messageEvent("Mallory", Map.of("account", ADMIN)), execution);
+        verify(execution).run();
+
+        MessageEvent withoutAccount = messageEvent(ADMIN, Map.of());
+        Runnable rejected = mock(Runnable.class);
+        runner.runPrivileged(withoutAccount, rejected);
+        verify(rejected, never()).run();
+        verify(withoutAccount).respond("not authorized.");
+        verify(output, never()).message("NickServ", "ACC " + ADMIN);
+    }
+
+    @Test
+    void whoxAccountIsKeptWhileSharingChannel() throws Exception {
+        capabilities("account-notify");
+        presenceIndex.add(ADMIN, "#a");
+        runner.onServerResponse(whoxReply(ADMIN, ADMIN));
+
+        Runnable execution = mock(Runnable.class);
+        runner.runPrivileged(privateMessageEvent(ADMIN), execution);
+        verify(execution).run();
+
+        // the bot leaves the only common channel
+        presenceIndex.removeChannel("#a");
+        runner.onPart(partEvent(BOT_NICK));
+
+        Runnable queued = mock(Runnable.class);
+        runner.runPrivileged(privateMessageEvent(ADMIN), queued);
+        verify(queued, never()).run();
+        verify(output).message("NickServ", "ACC " + ADMIN);
+    }
+
+    @Test
+    void accountNotifyFollowsLogout() throws Exception {
+        capabilities("account-notify");
+        presenceIndex.add(ADMIN, "#a");
+        runner.onUnknown(unknownEvent(":db!~db@host ACCOUNT db"));
+
+        Runnable execution = mock(Runnable.class);
+        runner.runPrivileged(privateMessageEvent(ADMIN), execution);
+        verify(execution).run();
+
+        runner.onUnknown(unknownEvent("@time=2024-01-01T00:00:00Z :db!~db@host ACCOUNT *"));
+        PrivateMessageEvent afterLogout = privateMessageEvent(ADMIN);
+        Runnable rejected = mock(Runnable.class);
+        runner.runPrivileged(afterLogout, rejected);
+        verify(rejected, never()).run();
+        verify(afterLogout).respond("not authorized.");
+    }
+
+    @Test
+    void accountFollowsNickChangeAndIsDroppedOnQuit() throws Exception {
+        capabilities("account-notify");
+        presenceIndex.add(ADMIN, "#a");
+        runner.onServerResponse(whoxReply(ADMIN, ADMIN));
+
+        presenceIndex.rename(ADMIN, "db_away");
+        runner.onNickChange(nickChangeEvent(ADMIN, "db_away"));
+
+        Runnable execution = mock(Runnable.class);
+        runner.runPrivileged(privateMessageEvent("db_away"), execution);
+        verify(execution).run();
+
+        // whoever takes the nick now isn't the admin
+        presenceIndex.add(ADMIN, "#a");
+        Runnable queued = mock(Runnable.class);
+        runner.runPrivileged(privateMessageEvent(ADMIN), queued);
+        verify(queued, never()).run();
+        verify(output).message("NickServ", "ACC " + ADMIN);
+
+        presenceIndex.removeNick("db_away");
+        runner.onQuit(quitEvent("db_away"));
+        PrivateMessageEvent afterQuit = privateMessageEvent("db_away");
+        runner.runPrivileged(afterQuit, mock(Runnable.class));
+        verify(afterQuit).respond("not authorized.");
+    }
+
+    private void capabilities(String... capabilities) {
+        doReturn(ImmutableList.copyOf(capabilities)).when(bot).getEnabledCapabilities();
+    }
+
+    private MessageEvent messageEvent(String nick, Map<String, String> tags) {
+        MessageEvent event = mock(MessageEvent.class);
+        User user = user(nick);
+        when(event.getUser()).thenReturn(user);
+        doReturn(bot).when(event).getBot();
+        doReturn(ImmutableMap.copyOf(tags)).when(event).getTags();
+        return event;
+    }
+
+    private PrivateMessageEvent privateMessageEvent(String nick) {
+        PrivateMessageEvent event = mock(PrivateMessageEvent.class);
+        User user = user(nick);
+        when(event.getUser()).thenReturn(user);
+        doReturn(bot).when(event).getBot();
+        return event;
+    }
+
+    private ServerResponseEvent whoxReply(String nick, String account) {
+        ServerResponseEvent event = mock(ServerResponseEvent.class);
+        when(event.getCode()).thenReturn(354);
+        doReturn(ImmutableList.of(BOT_NICK, "177", nick, account)).when(event).getParsedResponse();
+        doReturn(bot).when(event).getBot();
+        return event;
+    }
+
+    private static UnknownEvent unknownEvent(String line) {
+        UnknownEvent event = mock(UnknownEvent.class);
+        when(event.getLine()).thenReturn(line);
+        return event;
+    }
+
+    private PartEvent partEvent(String nick) {
+        PartEvent event = mock(PartEvent.class);
+        UserHostmask hostmask = hostmask(nick);
+        when(event.getUserHostmask()).thenReturn(hostmask);
+        doReturn(bot).when(event).getBot();
+        return event;
+    }
+
+    private static NickChangeEvent nickChangeEvent(String oldNick, String newNick) {
+        NickChangeEvent event = mock(NickChangeEvent.class);
+        when(event.getOldNick()).thenReturn(oldNick);
+        when(event.getNewNick()).thenReturn(newNick);
+        return event;
+    }
+
+    private static QuitEvent quitEvent(String nick) {
+        QuitEvent event = mock(QuitEvent.class);
+        UserHostmask hostmask = hostmask(nick);
+        when(event.getUserHostmask()).thenReturn(hostmask);
+        return event;
+    }
+
+    private static UserHostmask hostmask(String nick) {
+        UserHostmask hostmask = mock(UserHostmask.class);
+        when(hostmask.getNick()).thenReturn(nick);
+        return hostmask;
+    }
+
+    private static User user(String nick) {
+        User user = mock(User.class);
+        when(user.getNick()).thenReturn(nick);
+        return user;
+    }
+}
@@ -0,0 +1,65 @@
+package de.throughput.ircbot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ChannelActivityTrackerTest {
+
+    private static final String CHANNEL = "#test";
+    private static final long MINUTE = 60_000L;
+
+    private ChannelActivityTracker tracker;
+
+    @BeforeEach
+    void setup() {
+        tracker = new ChannelActivityTracker();
+    }
+
+    @Test
+    void countsDistinctSpeakers() {
+        tracker.record(CHANNEL, "alice", 0);
+        tracker.record(CHANNEL, "Alice", MINUTE);
+        tracker.record(CHANNEL, "bob", MINUTE);
+        tracker.record(CHANNEL, "gribble", MINUTE);
+
+        assertEquals(2, tracker.getSpeakerCount(CHANNEL, 2 * MINUTE));
+        assertEquals(0, tracker.getSpeakerCount("#other", 2 * MINUTE));
+    }
+
+    @Test
+    void speakersExpireAfterTenMinutes() {
+        tracker.record(CHANNEL, "alice", 0);
+        tracker.record(CHANNEL, "bob", 5 * MINUTE);
+        tracker.record(CHANNEL, "carol", 6 * MINUTE);
+
+        assertEquals(3, tracker.getSpeakerCount(CHANNEL, 10 * MINUTE));
+        assertEquals(2, tracker.getSpeakerCount(CHANNEL, 11 * MINUTE));
+        assertEquals(0, tracker.getSpeakerCount(CHANNEL, 17 * MINUTE));
+    }
+
+    @Test
+    void messageRateUsesMinuteBuckets() {
+        for (int i = 0; i < 20; i++) {
+            tracker.record(CHANNEL, "alice", i * MINUTE / 2);
+        }
+
+        assertEquals(2.0, tracker.getMessagesPerMinute(CHANNEL, 10 * MINUTE - 1));
+        assertEquals(1.0, tracker.getMessagesPerMinute(CHANNEL, 15 * MINUTE - 1));
+        assertEquals(0.0, tracker.getMessagesPerMinute(CHANNEL, 20 * MINUTE));
+    }
+
+    @Test
+    void activeChannelsNeedThreeSpeakers() {
+        long now = System.currentTimeMillis();
+        tracker.record(CHANNEL, "alice", now);
+        tracker.record(CHANNEL, "bob", now);
+        tracker.record("#quiet", "alice", now);
+        assertEquals(Set.of(), tracker.getActiveChannels());
+
+        tracker.record(CHANNEL, "carol", now);
+        assertEquals(Set.of(CHANNEL), tracker.getActiveChannels());
+    }
+}
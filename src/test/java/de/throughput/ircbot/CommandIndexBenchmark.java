@@ -0,0 +1,131 @@
+package de.throughput.ircbot;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandEvent;
+import de.throughput.ircbot.api.CommandHandler;
+
+/**
+ * Compares command lookup through {@link CommandIndex} with the former stream scan over all commands.
+ * <p>
+ * Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandIndexBenchmark {
+
+    private static final List<String> COMMANDS = List.of(
+            "addslogan", "aiimage", "aireset", "aroma", "ath", "calc", "crypto", "estr", "flip", "forget", "fx",
+            "help", "image", "karma", "lagerfeld", "localtime", "news", "picture", "price", "quote", "quoter",
+            "remindme", "rmslogan", "roulette", "seen", "slogan", "stock", "tlast", "weather", "wiki", "xkcd",
+            "zodiac");
+
+    /**
+     * Noisy channel traffic: exact commands, abbreviations, ambiguous prefixes and typos.
+     */
+    private static final List<String> TRAFFIC = List.of(
+            "seen", "quoter", "quote", "cr", "s", "st", "a", "ai", "remind", "r", "we", "!", "??", "stonks", "q",
+            "calc", "c", "forgot", "help", "h", "lol", "x", "new", "p", "pr", "tl", "zz", "image", "i", "fl");
+
+    private final Map<String, Pair<Command, CommandHandler>> commandHandlersByCommand = new LinkedHashMap<>();
+    private CommandIndex commandIndex;
+    private String[] messages;
+    private int next;
+
+    @Setup
+    public void setup() {
+        CommandHandler handler = new NoopCommandHandler();
+        COMMANDS.forEach(command -> commandHandlersByCommand.put(command, Pair.of(new Command(command, ""), handler)));
+        commandIndex = new CommandIndex(commandHandlersByCommand);
+
+        Random rnd = new Random(42);
+        messages = new String[1024];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = TRAFFIC.get(rnd.nextInt(TRAFFIC.size()));
+        }
+    }
+
+    @Benchmark
+    public void streamScan(Blackhole blackhole) {
+        String command = nextMessage();
+        List<Pair<Command, CommandHandler>> matches = commandHandlersByCommand.entrySet()
+                .stream()
+                .filter(entry -> entry.getKey().startsWith(command))
+                .map(Entry::getValue)
+                .sorted(Comparator.comparing(a -> a.getLeft().getCommand()))
+                .toList();
+
+        if (matches.size() == 1) {
+            blackhole.consume(matches.get(0));
+        } else if (matches.size() > 1) {
+            blackhole.consume(matches.stream()
+                    .filter(entry -> entry.getKey().getCommand().equals(command))
+                    .findFirst()
+                    .orElse(null));
+            blackhole.consume(matches);
+        }
+    }
+
+    @Benchmark
+    public void commandIndex(Blackhole blackhole) {
+        String command = nextMessage();
+        Pair<Command, CommandHandler> match = commandIndex.resolve(command);
+        if (match != null) {
+            blackhole.consume(match);
+        } else {
+            blackhole.consume(commandIndex.matches(command));
+        }
+    }
+
+    private String nextMessage() {
+        next = (next + 1) & (messages.length - 1);
+        return messages[next];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CommandIndexBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    private static class NoopCommandHandler implements CommandHandler {
+
+        @Override
+        public boolean onCommand(CommandEvent command) {
+            return false;
+        }
+
+        @Override
+        public Set<Command> getCommands() {
+            return Set.of();
+        }
+    }
+}
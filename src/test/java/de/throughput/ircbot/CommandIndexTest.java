@@ -0,0 +1,69 @@
+package de.throughput.ircbot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandHandler;
+
+class CommandIndexTest {
+
+    private CommandIndex index;
+
+    @BeforeEach
+    void setup() {
+        Map<String, Pair<Command, CommandHandler>> commands = new LinkedHashMap<>();
+        for (String name : List.of("slogan", "quoter", "seen", "quote", "stock", "addslogan", "aiimage", "aireset")) {
+            commands.put(name, Pair.of(new Command(name, ""), Mockito.mock(CommandHandler.class)));
+        }
+        index = new CommandIndex(commands);
+    }
+
+    @Test
+    void resolvesExactMatch() {
+        assertEquals("seen", index.resolve("seen").getLeft().getCommand());
+    }
+
+    @Test
+    void resolvesExactMatchSharingPrefixWithOtherCommands() {
+        assertEquals("quote", index.resolve("quote").getLeft().getCommand());
+        assertEquals("quoter", index.resolve("quoter").getLeft().getCommand());
+    }
+
+    @Test
+    void resolvesUniquePrefix() {
+        assertEquals("stock", index.resolve("st").getLeft().getCommand());
+        assertEquals("addslogan", index.resolve("ad").getLeft().getCommand());
+    }
+
+    @Test
+    void ambiguousPrefixHasSortedMatches() {
+        assertNull(index.resolve("s"));
+        assertEquals(List.of("seen", "slogan", "stock"), names(index.matches("s")));
+        assertNull(index.resolve("ai"));
+        assertEquals(List.of("aiimage", "aireset"), names(index.matches("ai")));
+    }
+
+    @Test
+    void unknownCommand() {
+        assertNull(index.resolve("x"));
+        assertTrue(index.matches("x").isEmpty());
+        assertNull(index.resolve("stocks"));
+        assertTrue(index.matches("stocks").isEmpty());
+    }
+
+    private static List<String> names(List<Pair<Command, CommandHandler>> matches) {
+        return matches.stream()
+                .map(match -> match.getLeft().getCommand())
+                .toList();
+    }
+}
@@ -0,0 +1,73 @@
+package de.throughput.ircbot;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.throughput.ircbot.api.CommandCost;
+
+class CommandRateLimiterTest {
+
+    private CommandRateLimiter limiter;
+
+    @BeforeEach
+    void setup() {
+        limiter = new CommandRateLimiter(10, 600_000, new IrcBotConfig());
+    }
+
+    @Test
+    void weightIsChargedAgainstUserBudget() {
+        CommandCost cost = CommandCost.weight(4);
+
+        assertTrue(limiter.tryAcquire("alice", "#a", "expensive", cost));
+        assertTrue(limiter.tryAcquire("Alice", "#b", "expensive", cost));
+        assertFalse(limiter.tryAcquire("ALICE", "#a", "expensive", cost));
+        assertTrue(limiter.tryAcquire("bob", "#a", "expensive", cost));
+    }
+
+    @Test
+    void channelBudgetIsSharedByUsers() {
+        CommandCost cost = CommandCost.weight(1).perChannel(2, Duration.ofHours(1));
+
+        assertTrue(limiter.tryAcquire("alice", "#a", "news", cost));
+        assertTrue(limiter.tryAcquire("bob", "#a", "news", cost));
+        assertFalse(limiter.tryAcquire("carol", "#a", "news", cost));
+        assertTrue(limiter.tryAcquire("carol", "#b", "news", cost));
+    }
+
+    @Test
+    void rejectionRefundsUserBudget() {
+        CommandCost limited = CommandCost.weight(5).global(1, Duration.ofHours(1));
+
+        assertTrue(limiter.tryAcquire("alice", "#a", "image", limited));
+        assertFalse(limiter.tryAcquire("bob", "#b", "image", limited));
+        // bob wasn't charged for the rejected image
+        assertTrue(limiter.tryAcquire("bob", "#b", "other", CommandCost.weight(10)));
+    }
+
+    @Test
+    void commandsWithTheSameCostShareItsBudgets() {
+        CommandCost shared = CommandCost.weight(1).perChannel(3, Duration.ofHours(1)).global(2, Duration.ofHours(1));
+
+        assertTrue(limiter.tryAcquire("alice", "#a", "image", shared));
+        assertTrue(limiter.tryAcquire("bob", "#b", "aiimage", shared));
+        assertFalse(limiter.tryAcquire("carol", "#c", "image", shared));
+        assertFalse(limiter.tryAcquire("carol", "#c", "aiimage", shared));
+        // an equal but separate cost has its own budget
+        CommandCost other = CommandCost.weight(1).perChannel(3, Duration.ofHours(1)).global(2, Duration.ofHours(1));
+        assertTrue(limiter.tryAcquire("carol", "#c", "news", other));
+    }
+
+    @Test
+    void channelBudgetIsSharedByCommandsWithTheSameCost() {
+        CommandCost shared = CommandCost.weight(1).perChannel(2, Duration.ofHours(1));
+
+        assertTrue(limiter.tryAcquire("alice", "#a", "crypto", shared));
+        assertTrue(limiter.tryAcquire("bob", "#a", "tlast", shared));
+        assertFalse(limiter.tryAcquire("carol", "#a", "crypto", shared));
+        assertTrue(limiter.tryAcquire("carol", "#b", "tlast", shared));
+    }
+}
@@ -0,0 +1,101 @@
+package de.throughput.ircbot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.sun.net.httpserver.HttpServer;
+
+class HttpServiceTest {
+
+    private static final byte[] BODY = new byte[100_000];
+
+    private HttpServer server;
+    private HttpService httpService;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(BODY);
+            } catch (IOException e) {
+                // the client closed the body early
+            }
+        });
+        server.start();
+        httpService = new HttpService(5000, 5000, 1);
+    }
+
+    @AfterEach
+    void teardown() {
+        httpService.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void streamedBodyHoldsPermitUntilClosed() throws Exception {
+        HttpResponse<InputStream> first = httpService.sendAsync(request(), BodyHandlers.ofInputStream())
+                .get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<HttpResponse<InputStream>> second = httpService.sendAsync(request(), BodyHandlers.ofInputStream());
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+
+        first.body().close();
+        try (InputStream body = second.get(5, TimeUnit.SECONDS).body()) {
+            assertEquals(BODY.length, body.readAllBytes().length);
+        }
+        assertEquals(0, httpService.getHostsWithPermits());
+    }
+
+    @Test
+    void bodyReadToEndReleasesPermit() throws Exception {
+        InputStream body = httpService.sendAsync(request(), BodyHandlers.ofInputStream())
+                .get(5, TimeUnit.SECONDS)
+                .body();
+        body.readAllBytes();
+
+        assertEquals(0, httpService.getHostsWithPermits());
+        assertEquals(200, httpService.sendAsync(request(), BodyHandlers.ofString())
+                .get(5, TimeUnit.SECONDS)
+                .statusCode());
+        assertEquals(0, httpService.getHostsWithPermits());
+        assertEquals(2, httpService.getHostStats().get("127.0.0.1").getRequests());
+    }
+
+    @Test
+    void statsOfRareHostsAreCombined() throws Exception {
+        int port = server.getAddress().getPort();
+        for (int i = 0; i < HttpService.MAX_STATS_HOSTS + 10; i++) {
+            // nothing listens there, so the requests fail right away
+            URI uri = URI.create("http://127.0.%d.%d:%d/".formatted(i / 250 + 1, i % 250 + 1, port));
+            httpService.sendAsync(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(1)).build(), BodyHandlers.discarding())
+                    .exceptionally(e -> null)
+                    .get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(HttpService.MAX_STATS_HOSTS + 1, httpService.getHostStats().size());
+        assertTrue(httpService.getHostStats().get(HttpService.OTHER_HOSTS).getErrors() >= 10);
+        assertEquals(0, httpService.getHostsWithPermits());
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/")).build();
+    }
+}
@@ -0,0 +1,94 @@
+package de.throughput.ircbot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pircbotx.Channel;
+import org.pircbotx.PircBotX;
+import org.pircbotx.hooks.events.MessageEvent;
+
+import de.throughput.ircbot.api.MessageFilter;
+import de.throughput.ircbot.api.MessageHandler;
+import de.throughput.ircbot.api.ParsedMessage;
+
+class MessageHandlerIndexTest {
+
+    private static final String TALK_CHANNEL = "#talk";
+    private static final String OTHER_CHANNEL = "#other";
+    private static final String BOT_NICK = "bot";
+
+    private MessageHandler seen;
+    private MessageHandler neinDoch;
+    private MessageHandler preis;
+    private MessageHandler chat;
+    private MessageHandler urls;
+    private MessageHandler factoids;
+    private MessageHandlerIndex index;
+
+    @BeforeEach
+    void setup() {
+        seen = handler(false, MessageFilter.ANY);
+        neinDoch = handler(true, MessageFilter.builder().exact("nein!").build());
+        preis = handler(true, MessageFilter.builder().exactIgnoreCase("Was letzte Preis?").build());
+        chat = handler(true, MessageFilter.builder().mentionsBot().build());
+        urls = handler(false, MessageFilter.builder().containsUrl().build());
+        factoids = handler(true, MessageFilter.builder().channels(Set.of(OTHER_CHANNEL)).build());
+        index = new MessageHandlerIndex(List.of(seen, neinDoch, preis, chat, urls, factoids), Set.of(TALK_CHANNEL, OTHER_CHANNEL));
+    }
+
+    @Test
+    void unfilteredHandlerGetsEveryMessage() {
+        assertEquals(List.of(seen), candidates(TALK_CHANNEL, "hello"));
+        assertEquals(List.of(seen), candidates("#quiet", "nein!"));
+    }
+
+    @Test
+    void triggersSelectHandlers() {
+        assertEquals(List.of(seen, neinDoch), candidates(TALK_CHANNEL, "nein!"));
+        assertEquals(List.of(seen), candidates(TALK_CHANNEL, "NEIN!"));
+        assertEquals(List.of(seen, preis), candidates(TALK_CHANNEL, "WAS LETZTE PREIS?"));
+        assertEquals(List.of(seen, chat), candidates(TALK_CHANNEL, "bot: hi"));
+        assertEquals(List.of(seen, urls), candidates(TALK_CHANNEL, "see https://example.com"));
+        assertEquals(List.of(seen, chat, urls), candidates(TALK_CHANNEL, "bot, what is https://example.com"));
+    }
+
+    @Test
+    void channelsRestrictHandlers() {
+        assertEquals(List.of(seen, factoids), candidates(OTHER_CHANNEL, "java"));
+        assertEquals(List.of(seen, urls), candidates("#quiet", "https://example.com"));
+    }
+
+    private List<MessageHandler> candidates(String channel, String message) {
+        List<MessageHandler> handlers = new ArrayList<>();
+        for (long mask = index.candidates(parsedMessage(channel, message)); mask != 0; mask &= mask - 1) {
+            handlers.add(index.get(Long.numberOfTrailingZeros(mask)));
+        }
+        return handlers;
+    }
+
+    private static ParsedMessage parsedMessage(String channelName, String message) {
+        Channel channel = mock(Channel.class);
+        when(channel.getName()).thenReturn(channelName);
+        PircBotX bot = mock(PircBotX.class);
+        when(bot.getNick()).thenReturn(BOT_NICK);
+        MessageEvent event = mock(MessageEvent.class);
+        when(event.getMessage()).thenReturn(message);
+        when(event.getChannel()).thenReturn(channel);
+        doReturn(bot).when(event).getBot();
+        return ParsedMessage.of(event);
+    }
+
+    private static MessageHandler handler(boolean onlyTalkChannels, MessageFilter filter) {
+        MessageHandler handler = mock(MessageHandler.class);
+        when(handler.isOnlyTalkChannels()).thenReturn(onlyTalkChannels);
+        when(handler.getMessageFilter()).thenReturn(filter);
+        return handler;
+    }
+}
@@ -0,0 +1,107 @@
+package de.throughput.ircbot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.pircbotx.PircBotX;
+import org.pircbotx.hooks.events.MessageEvent;
+
+import de.throughput.ircbot.api.ParsedMessage;
+
+class ParsedMessageTest {
+
+    private static final String BOT_NICK = "bot";
+
+    @Test
+    void derivedForms() {
+        ParsedMessage message = parse("  Was letzte Preis?  ");
+
+        assertEquals("  Was letzte Preis?  ", message.getMessage());
+        assertEquals("Was letzte Preis?", message.getTrimmed());
+        assertEquals("was letzte preis?", message.getLowerCase());
+        assertEquals("was letzte preis", message.getNormalized());
+    }
+
+    @Test
+    void normalizedStripsOnlyTrailingPunctuation() {
+        assertEquals("foo", parse("Foo ?! ").getNormalized());
+        assertEquals("foo.", parse("foo. .").getNormalized());
+        assertEquals("a, b", parse("a, b").getNormalized());
+        assertEquals("", parse(" ?!. ").getNormalized());
+        assertEquals("", parse("").getNormalized());
+    }
+
+    @Test
+    void normalizedMatchesFormerRegularExpression() {
+        Random random = new Random(42);
+        String alphabet = "ab ,;.!?\t  ";
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String expected = text.toString()
+                    .strip()
+                    .replaceAll("\\s*[,;.!?]+$", "")
+                    .toLowerCase(Locale.ROOT);
+            assertEquals(expected, parse(text.toString()).getNormalized(), "'" + text + "'");
+        }
+    }
+
+    @Test
+    void addressedText() {
+        assertEquals("hi", parse("bot: hi").getAddressedText());
+        assertEquals("hi there", parse("  bot,  hi there ").getAddressedText());
+        assertEquals("", parse("bot:").getAddressedText());
+        assertTrue(parse("bot,hi").isAddressedToBot());
+    }
+
+    @Test
+    void notAddressedToBot() {
+        assertNull(parse("bot").getAddressedText());
+        assertNull(parse("bot hi").getAddressedText());
+        assertNull(parse("botty: hi").getAddressedText());
+        assertNull(parse("hi bot: hi").getAddressedText());
+        assertFalse(parse("bot; hi").isAddressedToBot());
+    }
+
+    @Test
+    void formsAreComputedOnce() {
+        MessageEvent event = event("bot: Hello.");
+        ParsedMessage message = ParsedMessage.of(event);
+
+        assertSame(message.getTrimmed(), message.getTrimmed());
+        assertSame(message.getLowerCase(), message.getLowerCase());
+        assertSame(message.getNormalized(), message.getNormalized());
+        assertSame(message.getAddressedText(), message.getAddressedText());
+        assertTrue(message.isAddressedToBot());
+
+        verify(event, times(1)).getMessage();
+        verify(event, times(1)).getBot();
+    }
+
+    private static ParsedMessage parse(String text) {
+        return ParsedMessage.of(event(text));
+    }
+
+    private static MessageEvent event(String text) {
+        PircBotX bot = mock(PircBotX.class);
+        when(bot.getNick()).thenReturn(BOT_NICK);
+        MessageEvent event = mock(MessageEvent.class);
+        when(event.getMessage()).thenReturn(text);
+        doReturn(bot).when(event).getBot();
+        return event;
+    }
+}
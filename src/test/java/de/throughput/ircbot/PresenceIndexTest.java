@@ -0,0 +1,186 @@
+package de.throughput.ircbot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pircbotx.Channel;
+import org.pircbotx.User;
+import org.pircbotx.UserHostmask;
+import org.pircbotx.hooks.events.JoinEvent;
+import org.pircbotx.hooks.events.NickChangeEvent;
+import org.pircbotx.hooks.events.QuitEvent;
+
+import de.throughput.ircbot.api.CaseMapping;
+
+class PresenceIndexTest {
+
+    private PresenceIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new PresenceIndex();
+    }
+
+    @AfterEach
+    void resetCaseMapping() {
+        CaseMapping.setServerMapping(CaseMapping.RFC1459);
+    }
+
+    @Test
+    void tracksNicksPerChannel() {
+        index.add("alice", "#a");
+        index.add("alice", "#b");
+        index.remove("alice", "#a");
+
+        assertFalse(index.isOnChannel("alice", "#a"));
+        assertTrue(index.isOnChannel("alice", "#b"));
+
+        index.removeChannel("#b");
+        assertFalse(index.isOnline("alice"));
+    }
+
+    @Test
+    void followsNickChanges() {
+        index.add("alice", "#a");
+        index.rename("alice", "bob");
+
+        assertFalse(index.isOnline("alice"));
+        assertTrue(index.isOnChannel("bob", "#a"));
+
+        index.removeNick("bob");
+        assertFalse(index.isAnyOnline("b"));
+    }
+
+    @Test
+    void comparesByCaseMapping() {
+        index.add("Gribble[m]", "#A");
+
+        assertTrue(index.isOnChannel("gribble{M}", "#a"));
+        assertTrue(index.isAnyOnline("GRIB"));
+        assertEquals(Set.of("gribble{m}"), index.getNicksStartingWith("gribble"));
+        assertFalse(index.isAnyOnline("grubble"));
+
+        // ^ is the upper case of ~
+        index.add("Nick^", "#a");
+        assertTrue(index.isOnline("nick~"));
+    }
+
+    @Test
+    void asciiCaseMappingKeepsBrackets() {
+        CaseMapping.setServerMapping(CaseMapping.ASCII);
+        index.add("Nick[m]", "#a");
+
+        assertTrue(index.isOnline("nick[m]"));
+        assertFalse(index.isOnline("nick{m}"));
+    }
+
+    @Test
+    void userEventsDontOvertakeChannelEvents() {
+        OrderedListenerManager manager = new OrderedListenerManager(100);
+        LastInFirstOutExecutor pool = new LastInFirstOutExecutor();
+
+        // JOIN is a channel event, NICK and QUIT are user events; run later lanes first
+        manager.submitEvent(pool, index, joinEvent("alice", "#a"));
+        manager.submitEvent(pool, index, nickChangeEvent("alice", "bob"));
+        manager.submitEvent(pool, index, joinEvent("carol", "#a"));
+        manager.submitEvent(pool, index, quitEvent("carol"));
+        pool.runAll();
+
+        assertFalse(index.isOnline("alice"));
+        assertTrue(index.isOnChannel("bob", "#a"));
+        assertFalse(index.isOnline("carol"));
+        assertEquals(0, manager.getQueueDepth());
+    }
+
+    private static JoinEvent joinEvent(String nick, String channelName) {
+        Channel channel = mock(Channel.class);
+        when(channel.getName()).thenReturn(channelName);
+        JoinEvent event = mock(JoinEvent.class);
+        when(event.getChannel()).thenReturn(channel);
+        when(event.getUserHostmask()).thenReturn(hostmask(nick));
+        return event;
+    }
+
+    private static NickChangeEvent nickChangeEvent(String oldNick, String newNick) {
+        NickChangeEvent event = mock(NickChangeEvent.class);
+        when(event.getOldNick()).thenReturn(oldNick);
+        when(event.getNewNick()).thenReturn(newNick);
+        when(event.getUser()).thenReturn(user(newNick));
+        return event;
+    }
+
+    private static QuitEvent quitEvent(String nick) {
+        QuitEvent event = mock(QuitEvent.class);
+        when(event.getUserHostmask()).thenReturn(hostmask(nick));
+        when(event.getUser()).thenReturn(user(nick));
+        return event;
+    }
+
+    private static UserHostmask hostmask(String nick) {
+        UserHostmask hostmask = mock(UserHostmask.class);
+        when(hostmask.getNick()).thenReturn(nick);
+        return hostmask;
+    }
+
+    private static User user(String nick) {
+        User user = mock(User.class);
+        when(user.getNick()).thenReturn(nick);
+        return user;
+    }
+
+    /**
+     * Runs submitted tasks when asked, newest first.
+     */
+    private static class LastInFirstOutExecutor extends AbstractExecutorService {
+
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.pollLast()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
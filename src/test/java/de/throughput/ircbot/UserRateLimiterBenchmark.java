@@ -0,0 +1,117 @@
+package de.throughput.ircbot;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Contended {@link UserRateLimiter#limit(String)} calls from many threads, compared with the former
+ * implementation using one global lock and a set of boxed timestamps per nick.
+ * <p>
+ * Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class UserRateLimiterBenchmark {
+
+    private static final int NICKS = 1000;
+
+    private final String[] nicks = new String[NICKS];
+    private UserRateLimiter rateLimiter;
+    private GlobalLockRateLimiter globalLockRateLimiter;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < NICKS; i++) {
+            nicks[i] = "nick" + i;
+        }
+        rateLimiter = new UserRateLimiter(5, 10000, 60000, 10000, new IrcBotConfig());
+        globalLockRateLimiter = new GlobalLockRateLimiter(5, 10000);
+    }
+
+    @Benchmark
+    public boolean slidingWindowManyNicks() {
+        return check(randomNick());
+    }
+
+    @Benchmark
+    public boolean slidingWindowOneNick() {
+        return check(nicks[0]);
+    }
+
+    @Benchmark
+    public boolean globalLockManyNicks() {
+        return globalLockRateLimiter.limit(randomNick());
+    }
+
+    @Benchmark
+    public boolean globalLockOneNick() {
+        return globalLockRateLimiter.limit(nicks[0]);
+    }
+
+    /**
+     * Checks like the conversation listener does: users on the penalty bench aren't counted.
+     */
+    private boolean check(String nick) {
+        return rateLimiter.ignore(nick) || rateLimiter.limit(nick);
+    }
+
+    private String randomNick() {
+        return nicks[ThreadLocalRandom.current().nextInt(NICKS)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserRateLimiterBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    /**
+     * The former rate limiting implementation.
+     */
+    private static class GlobalLockRateLimiter {
+
+        private final int maxInteractions;
+        private final long checkPeriodMillis;
+        private final Map<String, Set<Long>> botInteractionTimesByNick = new HashMap<>();
+
+        GlobalLockRateLimiter(int maxInteractions, long checkPeriodMillis) {
+            this.maxInteractions = maxInteractions;
+            this.checkPeriodMillis = checkPeriodMillis;
+        }
+
+        boolean limit(String nick) {
+            long currentTimeMillis = System.currentTimeMillis();
+            long cutOff = currentTimeMillis - checkPeriodMillis;
+            synchronized (botInteractionTimesByNick) {
+                Set<Long> interactionTimes = botInteractionTimesByNick.computeIfAbsent(nick, key -> new HashSet<>());
+                interactionTimes.removeIf(time -> time < cutOff);
+                interactionTimes.add(currentTimeMillis);
+                return interactionTimes.size() > maxInteractions;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package de.throughput.ircbot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UserRateLimiterTest {
+
+    private final long now = System.currentTimeMillis();
+
+    private UserRateLimiter limiter;
+
+    @BeforeEach
+    void setup() {
+        // 2 interactions per 10 seconds, at most 3 nicks
+        limiter = new UserRateLimiter(2, 10_000, 60_000, 3, new IrcBotConfig());
+    }
+
+    @Test
+    void limitsEachNick() {
+        assertFalse(limiter.limit("alice", now));
+        assertFalse(limiter.limit("Alice", now + 1));
+        assertTrue(limiter.limit("ALICE", now + 2));
+        assertTrue(limiter.ignore("alice"));
+        assertFalse(limiter.limit("bob", now + 3));
+    }
+
+    @Test
+    void floodOfNewNicksDoesntLimitOthers() {
+        for (int i = 0; i < 100; i++) {
+            limiter.limit("flood" + i, now);
+        }
+
+        assertFalse(limiter.limit("alice", now + 1));
+        assertFalse(limiter.limit("alice", now + 2));
+        assertFalse(limiter.ignore("alice"));
+        assertEquals(3, limiter.getTrackedNicks());
+    }
+
+    @Test
+    void idleNicksMakeRoomForNewOnes() {
+        limiter.limit("flood1", now);
+        limiter.limit("flood2", now);
+        limiter.limit("flood3", now);
+
+        // once the flood is idle, new nicks are tracked again
+        long later = now + 20_000;
+        assertFalse(limiter.limit("alice", later));
+        assertFalse(limiter.limit("alice", later + 1));
+        assertTrue(limiter.limit("alice", later + 2));
+        assertEquals(1, limiter.getTrackedNicks());
+    }
+}
@@ -1,6 +1,7 @@
 package de.throughput.ircbot.handler;
 
 import de.throughput.ircbot.IrcBotConfig;
+import de.throughput.ircbot.api.ParsedMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -16,6 +17,7 @@ import static org.mockito.Mockito.*;
 class FactoidHandlerTest {
 
     private static final String TEST_CHANNEL = "#test";
+    private static final String INSERT_FACT = "INSERT INTO factoid (key, verb, fact) VALUES (?, ?, ?) ON CONFLICT (key, verb) DO NOTHING";
 
     private JdbcTemplate jdbcTemplate;
     private IrcBotConfig botConfig;
@@ -55,29 +57,33 @@ class FactoidHandlerTest {
         assertNoFactoid("yo mama is so fat");
     }
 
-    private void assertFactoid(String message, String key, String verb, String fact) {
-        // Mock keyExists to return false, indicating the factoid does not yet exist
-        when(jdbcTemplate.queryForObject(
-                eq("SELECT COUNT(*) FROM factoid WHERE key = ? AND verb = ?"),
-                eq(Integer.class),
-                eq(key), eq(verb)
-        )).thenReturn(0);
+    @Test
+    void unknownKeyDoesNotQueryDatabase() {
+        MessageEvent event = mockMessageEvent("java?");
+        handler.onMessage(event, ParsedMessage.of(event));
 
-        handler.onMessage(mockMessageEvent(message));
+        // only the key index has been loaded
+        verify(jdbcTemplate, only()).queryForList("SELECT DISTINCT key FROM factoid", String.class);
+    }
+
+    private void assertFactoid(String message, String key, String verb, String fact) {
+        MessageEvent event = mockMessageEvent(message);
+        handler.onMessage(event, ParsedMessage.of(event));
 
         // Assert
         verify(jdbcTemplate).update(
-                eq("INSERT INTO factoid (key, verb, fact) VALUES (?, ?, ?)"),
+                eq(INSERT_FACT),
                 eq(key), eq(verb), eq(fact)
         );
     }
 
     private void assertNoFactoid(String message) {
-        handler.onMessage(mockMessageEvent(message));
+        MessageEvent event = mockMessageEvent(message);
+        handler.onMessage(event, ParsedMessage.of(event));
 
         // Assert that insertFact was not called
         verify(jdbcTemplate, never()).update(
-                eq("INSERT INTO factoid (key, verb, fact) VALUES (?, ?, ?)"),
+                eq(INSERT_FACT),
                 anyString(), anyString(), anyString()
         );
     }
@@ -0,0 +1,78 @@
+package de.throughput.ircbot.handler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Factoid and karma parsing of hostile messages, compared with the former regular expressions.
+ * <p>
+ * The messages fill an IRC line: 512 bytes less the {@code :nick!user@host PRIVMSG #channel :} prefix and
+ * the line ending. Every message is checked for karma and factoid syntax, like a message in a factoid channel.
+ * <p>
+ * Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FactoidKarmaParseBenchmark {
+
+    private static final int MESSAGE_LENGTH = 440;
+
+    private static final Pattern FACTOID_DEFINITION = Pattern.compile("^\\s*(\\S{1,254}(?<![:,;.?]))\\s+(is also|is|are also|are)\\s+(.*{1,}\\S)\\s*$");
+    private static final Pattern KARMA_PREFIX = Pattern.compile("^\\s*(\\+\\+|\\-\\-)\\s*(.*{1,254}\\S)\\s*$");
+    private static final Pattern KARMA_POSTFIX = Pattern.compile("^\\s*(.*{1,254}\\S)\\s*(\\+\\+|\\-\\-)\\s*$");
+
+    @Param({"spaces", "spacesAroundWord", "tabsAfterVerb", "words", "operatorWords"})
+    private String shape;
+
+    private String message;
+
+    @Setup
+    public void setup() {
+        int half = MESSAGE_LENGTH / 2;
+        message = switch (shape) {
+            case "spaces" -> "a" + " ".repeat(MESSAGE_LENGTH - 2) + "b";
+            case "spacesAroundWord" -> " ".repeat(half) + "a" + " ".repeat(half - 3) + "+-";
+            case "tabsAfterVerb" -> "x is " + "\t ".repeat(half - 3) + "\n";
+            case "words" -> "a ".repeat(half) + "\n+";
+            case "operatorWords" -> "++" + "a ".repeat(half - 2) + " a";
+            default -> throw new IllegalArgumentException(shape);
+        };
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return KARMA_PREFIX.matcher(message).matches()
+                || KARMA_POSTFIX.matcher(message).matches()
+                || FACTOID_DEFINITION.matcher(message).matches();
+    }
+
+    @Benchmark
+    public boolean scanner() {
+        return KarmaChange.parse(message).isPresent() || FactoidDefinition.parse(message).isPresent();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FactoidKarmaParseBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,96 @@
+package de.throughput.ircbot.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares {@link FactoidDefinition#parse(String)} and {@link KarmaChange#parse(String)} with the regular
+ * expressions they replace.
+ */
+class FactoidKarmaParseTest {
+
+    private static final Pattern FACTOID_DEFINITION = Pattern.compile("^\\s*(\\S{1,254}(?<![:,;.?]))\\s+(is also|is|are also|are)\\s+(.*{1,}\\S)\\s*$");
+    private static final Pattern KARMA_PREFIX = Pattern.compile("^\\s*(\\+\\+|\\-\\-)\\s*(.*{1,254}\\S)\\s*$");
+    private static final Pattern KARMA_POSTFIX = Pattern.compile("^\\s*(.*{1,254}\\S)\\s*(\\+\\+|\\-\\-)\\s*$");
+
+    /**
+     * Fragments the random messages are made of: whitespace, line terminators, operators, verbs and characters
+     * the key must not end with.
+     */
+    private static final String[] FRAGMENTS = {" ", "  ", "\t", "\n", "\r", "\u000B", "\f", "\u0085", "\u2028",
+            "\u2029", "a", "xy", ":", "?", ".", "+", "++", "-", "--", "is", "also", "are", "is also", "\uD83D\uDE00",
+            "\uD83D", "ß"};
+
+    @Test
+    void parsesLikeRegexOnRandomMessages() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            String message = randomMessage(random, 1 + random.nextInt(40));
+            assertEquals(regexFactoid(message), FactoidDefinition.parse(message), message);
+            assertEquals(regexKarma(message), KarmaChange.parse(message), message);
+        }
+    }
+
+    @Test
+    void parsesFactoids() {
+        assertEquals(Optional.of(new FactoidDefinition("Java", "is", false, "a language")),
+                FactoidDefinition.parse("  Java is   a language "));
+        assertEquals(Optional.of(new FactoidDefinition("trees", "are", true, "green")),
+                FactoidDefinition.parse("trees are also green"));
+        assertEquals(Optional.of(new FactoidDefinition("x", "is", false, "also")),
+                FactoidDefinition.parse("x is also"));
+        assertEquals(Optional.empty(), FactoidDefinition.parse("what? is this"));
+        assertEquals(Optional.empty(), FactoidDefinition.parse("x is"));
+    }
+
+    @Test
+    void limitsKeyToCodePoints() {
+        String key = "\uD83D\uDE00".repeat(254);
+        assertEquals(regexFactoid(key + " is x"), FactoidDefinition.parse(key + " is x"));
+        assertEquals(regexFactoid(key + "a is x"), FactoidDefinition.parse(key + "a is x"));
+        assertEquals(Optional.empty(), FactoidDefinition.parse(key + "a is x"));
+    }
+
+    @Test
+    void parsesKarma() {
+        assertEquals(Optional.of(new KarmaChange("java", 1)), KarmaChange.parse("java++"));
+        assertEquals(Optional.of(new KarmaChange("c++", -1)), KarmaChange.parse(" c++ -- "));
+        assertEquals(Optional.of(new KarmaChange("x--", 1)), KarmaChange.parse("++x--"));
+        assertEquals(Optional.empty(), KarmaChange.parse("++"));
+    }
+
+    private static String randomMessage(Random random, int fragments) {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < fragments; i++) {
+            message.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return message.toString();
+    }
+
+    private static Optional<FactoidDefinition> regexFactoid(String message) {
+        Matcher matcher = FACTOID_DEFINITION.matcher(message);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        String verb = matcher.group(2);
+        boolean also = verb.endsWith("also");
+        return Optional.of(new FactoidDefinition(matcher.group(1), verb.split(" ")[0], also, matcher.group(3)));
+    }
+
+    private static Optional<KarmaChange> regexKarma(String message) {
+        Matcher matcher = KARMA_PREFIX.matcher(message);
+        if (matcher.matches()) {
+            return Optional.of(new KarmaChange(matcher.group(2), "++".equals(matcher.group(1)) ? 1 : -1));
+        }
+        matcher = KARMA_POSTFIX.matcher(message);
+        if (matcher.matches()) {
+            return Optional.of(new KarmaChange(matcher.group(1), "++".equals(matcher.group(2)) ? 1 : -1));
+        }
+        return Optional.empty();
+    }
+}
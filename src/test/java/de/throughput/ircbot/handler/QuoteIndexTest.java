@@ -0,0 +1,112 @@
+package de.throughput.ircbot.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QuoteIndexTest {
+
+    private static final String CHANNEL = "#test";
+
+    private QuoteIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new QuoteIndex();
+    }
+
+    @Test
+    void picksIdsOfChannelAndNick() {
+        index.add(1, CHANNEL, "alice");
+        index.add(2, CHANNEL, "alice");
+        index.add(3, CHANNEL, "bob");
+        index.add(4, "#other", "alice");
+
+        assertEquals(Set.of(1, 2, 3), picks(() -> index.random(CHANNEL)));
+        assertEquals(Set.of(1, 2), picks(() -> index.random(CHANNEL, "alice")));
+        assertEquals(Set.of(3), picks(() -> index.random(CHANNEL, "bob")));
+        assertEquals(Set.of(4), picks(() -> index.random("#other")));
+    }
+
+    @Test
+    void missingKeysHaveNoQuote() {
+        index.add(1, CHANNEL, "alice");
+
+        assertEquals(OptionalInt.empty(), index.random("#none"));
+        assertEquals(OptionalInt.empty(), index.random(CHANNEL, "bob"));
+        assertEquals(OptionalInt.empty(), index.random("#none", "alice"));
+    }
+
+    @Test
+    void removeKeepsOtherIds() {
+        for (int id = 1; id <= 10; id++) {
+            index.add(id, CHANNEL, "alice");
+        }
+
+        // first, middle and last position, and an unknown id
+        index.remove(1, CHANNEL, "alice");
+        index.remove(5, CHANNEL, "alice");
+        index.remove(10, CHANNEL, "alice");
+        index.remove(42, CHANNEL, "alice");
+
+        Set<Integer> expected = Set.of(2, 3, 4, 6, 7, 8, 9);
+        assertEquals(expected, picks(() -> index.random(CHANNEL)));
+        assertEquals(expected, picks(() -> index.random(CHANNEL, "alice")));
+    }
+
+    @Test
+    void removingLastIdDropsKeys() {
+        index.add(1, CHANNEL, "alice");
+        index.add(2, CHANNEL, "bob");
+        assertEquals(3, index.getKeyCount());
+
+        index.remove(1, CHANNEL, "alice");
+        assertEquals(2, index.getKeyCount());
+        assertEquals(OptionalInt.empty(), index.random(CHANNEL, "alice"));
+
+        index.remove(2, CHANNEL, "bob");
+        assertEquals(0, index.getKeyCount());
+        assertEquals(OptionalInt.empty(), index.random(CHANNEL));
+    }
+
+    @Test
+    void removeWithoutNickKeepsIdOfNick() {
+        index.add(1, CHANNEL, "alice");
+
+        index.remove(1, CHANNEL, null);
+
+        assertEquals(OptionalInt.empty(), index.random(CHANNEL));
+        assertEquals(OptionalInt.of(1), index.random(CHANNEL, "alice"));
+        assertEquals(1, index.getKeyCount());
+    }
+
+    @Test
+    void listsGrowBeyondInitialCapacity() {
+        Set<Integer> ids = new HashSet<>();
+        for (int id = 1; id <= 20; id++) {
+            index.add(id, CHANNEL, "alice");
+            ids.add(id);
+        }
+
+        assertEquals(ids, picks(() -> index.random(CHANNEL, "alice")));
+    }
+
+    /**
+     * @return the ids picked in many tries
+     */
+    private static Set<Integer> picks(Supplier<OptionalInt> random) {
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            OptionalInt id = random.get();
+            assertTrue(id.isPresent());
+            picked.add(id.getAsInt());
+        }
+        return picked;
+    }
+}
@@ -0,0 +1,121 @@
+package de.throughput.ircbot.handler;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Compares random quote lookup with {@code ORDER BY RANDOM()} against {@link QuoteIndex} and lookup by id,
+ * on a table of one million quotes.
+ * <p>
+ * Needs a PostgreSQL database, given by the system properties {@code benchmark.jdbc.url},
+ * {@code benchmark.jdbc.user} and {@code benchmark.jdbc.password}. The quotes are seeded into the
+ * scratch schema {@code quote_benchmark}, which is dropped afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuoteLookupBenchmark {
+
+    private static final int QUOTES = 1_000_000;
+    private static final int CHANNELS = 3;
+    private static final int NICKS = 1000;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private QuoteIndex quoteIndex;
+
+    @Setup
+    public void setup() {
+        dataSource = new SingleConnectionDataSource(System.getProperty("benchmark.jdbc.url"),
+                System.getProperty("benchmark.jdbc.user"), System.getProperty("benchmark.jdbc.password"), true);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("DROP SCHEMA IF EXISTS quote_benchmark CASCADE");
+        jdbc.execute("CREATE SCHEMA quote_benchmark");
+        jdbc.execute("SET search_path TO quote_benchmark");
+        jdbc.execute("""
+                CREATE TABLE quote
+                (
+                    "id"        SERIAL,
+                    "timestamp" TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+                    "nick"      VARCHAR(255)             NOT NULL,
+                    "channel"   VARCHAR(255)             NOT NULL,
+                    "message"   TEXT                     NOT NULL,
+                    PRIMARY KEY (id)
+                )""");
+        jdbc.execute("CREATE INDEX idx_quote_nick ON quote (\"nick\")");
+        jdbc.execute("CREATE INDEX idx_quote_channel ON quote (\"channel\")");
+        jdbc.update("INSERT INTO quote (nick, channel, message) "
+                + "SELECT 'nick' || (i % ?), '#channel' || (i % ?), md5(i::text) FROM generate_series(1, ?) AS i",
+                NICKS, CHANNELS, QUOTES);
+        jdbc.execute("ANALYZE quote");
+
+        quoteIndex = new QuoteIndex();
+        quoteIndex.load(jdbc);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbc.execute("DROP SCHEMA quote_benchmark CASCADE");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public String orderByRandomChannel() {
+        return jdbc.queryForObject("SELECT message FROM quote WHERE channel = ? ORDER BY RANDOM() LIMIT 1",
+                String.class, randomChannel());
+    }
+
+    @Benchmark
+    public String orderByRandomNick() {
+        return jdbc.queryForObject("SELECT message FROM quote WHERE channel = ? AND nick = ? ORDER BY RANDOM() LIMIT 1",
+                String.class, randomChannel(), randomNick());
+    }
+
+    @Benchmark
+    public String indexedChannel() {
+        return lookupById(quoteIndex.random(randomChannel()).getAsInt());
+    }
+
+    @Benchmark
+    public String indexedNick() {
+        return lookupById(quoteIndex.random(randomChannel(), randomNick()).getAsInt());
+    }
+
+    private String lookupById(int id) {
+        return jdbc.queryForObject("SELECT message FROM quote WHERE id = ?", String.class, id);
+    }
+
+    private static String randomChannel() {
+        return "#channel" + ThreadLocalRandom.current().nextInt(CHANNELS);
+    }
+
+    private static String randomNick() {
+        return "nick" + ThreadLocalRandom.current().nextInt(NICKS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QuoteLookupBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,169 @@
+package de.throughput.ircbot.handler;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.pircbotx.Channel;
+import org.pircbotx.PircBotX;
+import org.pircbotx.User;
+import org.pircbotx.hooks.events.JoinEvent;
+import org.pircbotx.hooks.events.MessageEvent;
+import org.pircbotx.output.OutputIRC;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.throughput.ircbot.PresenceIndex;
+import de.throughput.ircbot.api.CommandEvent;
+import de.throughput.ircbot.api.ParsedMessage;
+
+class ReminderCommandHandlerTest {
+
+    private static final String BOT_NICK = "ircbot";
+    private static final String CHANNEL = "#test";
+    private static final String NICK = "Alice";
+    private static final String DELETE_REMINDER = "DELETE FROM reminder WHERE id = ?";
+    private static final int ID = 7;
+
+    private JdbcTemplate jdbc;
+    private PircBotX bot;
+    private OutputIRC output;
+    private PresenceIndex presenceIndex;
+    private ScheduledExecutorService scheduler;
+    private ReminderCommandHandler handler;
+
+    @BeforeEach
+    void setup() {
+        jdbc = mock(JdbcTemplate.class);
+        when(jdbc.queryForObject(startsWith("INSERT INTO reminder"), eq(Integer.class),
+                anyString(), anyString(), any(), anyString(), anyString())).thenReturn(ID);
+        bot = mock(PircBotX.class);
+        when(bot.getNick()).thenReturn(BOT_NICK);
+        output = mock(OutputIRC.class);
+        when(bot.send()).thenReturn(output);
+        presenceIndex = mock(PresenceIndex.class);
+        scheduler = mock(ScheduledExecutorService.class);
+        handler = new ReminderCommandHandler(jdbc, bot, presenceIndex, scheduler);
+    }
+
+    @Test
+    void reminderIsScheduledForItsDay() {
+        MessageEvent event = remindMe("2 days: water the plants");
+
+        verify(event).respond(startsWith("OK, I will remind you on "));
+        ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        verify(scheduler).schedule(any(Runnable.class), delay.capture(), eq(TimeUnit.MILLISECONDS));
+        // the start of the day after tomorrow, give or take a DST change
+        assertTrue(delay.getValue() > TimeUnit.HOURS.toMillis(23));
+        assertTrue(delay.getValue() <= TimeUnit.HOURS.toMillis(49));
+    }
+
+    @Test
+    void dueReminderIsDeletedBeforeItIsSent() {
+        Runnable due = scheduleReminder();
+        when(presenceIndex.isOnChannel(NICK, CHANNEL)).thenReturn(true);
+
+        due.run();
+
+        InOrder inOrder = inOrder(jdbc, output);
+        inOrder.verify(jdbc).update(DELETE_REMINDER, ID);
+        inOrder.verify(output).message(eq(CHANNEL), startsWith(NICK + ": you asked me on "));
+    }
+
+    @Test
+    void dueReminderIsDeliveredOnceWhenUserJoins() {
+        Runnable due = scheduleReminder();
+
+        due.run();
+        verify(output, never()).message(anyString(), anyString());
+
+        handler.onJoin(joinEvent("alice"));
+        handler.onJoin(joinEvent("alice"));
+        handler.onMessage(messageEvent("alice", "hi"));
+
+        verify(jdbc, times(1)).update(DELETE_REMINDER, ID);
+        verify(output, times(1)).message(eq(CHANNEL), startsWith(NICK + ": you asked me on "));
+    }
+
+    @Test
+    void reminderStaysDueIfItCantBeDeleted() {
+        Runnable due = scheduleReminder();
+        when(presenceIndex.isOnChannel(NICK, CHANNEL)).thenReturn(true);
+        when(jdbc.update(DELETE_REMINDER, ID))
+                .thenThrow(new DataAccessResourceFailureException("database is down"))
+                .thenReturn(1);
+
+        due.run();
+        verify(output, never()).message(anyString(), anyString());
+
+        handler.onMessage(messageEvent(NICK, "hi"));
+        verify(output).message(eq(CHANNEL), startsWith(NICK + ": you asked me on "));
+    }
+
+    /**
+     * @return the task run when the reminder is due
+     */
+    private Runnable scheduleReminder() {
+        remindMe("1 day: water the plants");
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(task.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        return task.getValue();
+    }
+
+    private MessageEvent remindMe(String argLine) {
+        MessageEvent event = messageEvent(NICK, "!remindme " + argLine);
+        handler.onCommand(new CommandEvent(event, handler.getCommands().iterator().next(), "!",
+                Optional.of(argLine), ParsedMessage.of(event)));
+        return event;
+    }
+
+    private MessageEvent messageEvent(String nick, String message) {
+        MessageEvent event = mock(MessageEvent.class);
+        Channel channel = channel();
+        when(event.getChannel()).thenReturn(channel);
+        User user = user(nick);
+        when(event.getUser()).thenReturn(user);
+        when(event.getMessage()).thenReturn(message);
+        doReturn(bot).when(event).getBot();
+        return event;
+    }
+
+    private JoinEvent joinEvent(String nick) {
+        JoinEvent event = mock(JoinEvent.class);
+        Channel channel = channel();
+        when(event.getChannel()).thenReturn(channel);
+        User user = user(nick);
+        when(event.getUser()).thenReturn(user);
+        doReturn(bot).when(event).getBot();
+        return event;
+    }
+
+    private static Channel channel() {
+        Channel channel = mock(Channel.class);
+        when(channel.getName()).thenReturn(CHANNEL);
+        return channel;
+    }
+
+    private static User user(String nick) {
+        User user = mock(User.class);
+        when(user.getNick()).thenReturn(nick);
+        return user;
+    }
+}
@@ -0,0 +1,108 @@
+package de.throughput.ircbot.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pircbotx.Channel;
+import org.pircbotx.User;
+import org.pircbotx.hooks.events.MessageEvent;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandEvent;
+import de.throughput.ircbot.api.ParsedMessage;
+
+class SeenHandlerTest {
+
+    private static final String INSERT_SEEN = "INSERT INTO seen";
+
+    private JdbcTemplate jdbc;
+    private SeenHandler handler;
+
+    @BeforeEach
+    void setup() {
+        jdbc = mock(JdbcTemplate.class);
+        handler = new SeenHandler(jdbc);
+    }
+
+    @Test
+    void seenIsAnsweredFromBufferIgnoringCase() {
+        say("#Java", "Alice", "hello");
+
+        MessageEvent command = messageEvent("#JAVA", "bob", "!seen ALICE");
+        handler.onCommand(new CommandEvent(command, seenCommand(), "!", Optional.of("ALICE"),
+                ParsedMessage.of(command)));
+
+        verify(command).respond(argThat(response -> response.startsWith("alice was last seen on #java")
+                && response.contains("saying: hello")));
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void latestMessagePerNickIsKept() {
+        say("#java", "alice", "first");
+        say("#java", "Alice", "second");
+
+        assertEquals(1, handler.getPendingCount());
+    }
+
+    @Test
+    void bufferIsWrittenAtThreshold() {
+        for (int i = 0; i < 99; i++) {
+            say("#java", "user" + i, "hi");
+        }
+        verifyNoInteractions(jdbc);
+
+        say("#java", "user99", "hi");
+
+        verify(jdbc).batchUpdate(startsWith(INSERT_SEEN), anyList());
+        assertEquals(0, handler.getPendingCount());
+    }
+
+    @Test
+    void failedWriteIsOnlyRetriedBySchedule() {
+        when(jdbc.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("database is down"));
+        for (int i = 0; i < 150; i++) {
+            say("#java", "user" + i, "hi");
+        }
+        verify(jdbc, times(1)).batchUpdate(startsWith(INSERT_SEEN), anyList());
+        assertEquals(150, handler.getPendingCount());
+
+        handler.flush();
+        verify(jdbc, times(2)).batchUpdate(startsWith(INSERT_SEEN), anyList());
+    }
+
+    private void say(String channel, String nick, String message) {
+        MessageEvent event = messageEvent(channel, nick, message);
+        handler.onMessage(event, ParsedMessage.of(event));
+    }
+
+    private Command seenCommand() {
+        return handler.getCommands().iterator().next();
+    }
+
+    private static MessageEvent messageEvent(String channelName, String nick, String message) {
+        Channel channel = mock(Channel.class);
+        when(channel.getName()).thenReturn(channelName);
+        User user = mock(User.class);
+        when(user.getNick()).thenReturn(nick);
+        MessageEvent event = mock(MessageEvent.class);
+        when(event.getChannel()).thenReturn(channel);
+        when(event.getChannelSource()).thenReturn(channelName);
+        when(event.getUser()).thenReturn(user);
+        when(event.getMessage()).thenReturn(message);
+        return event;
+    }
+}
@@ -0,0 +1,106 @@
+package de.throughput.ircbot.handler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pircbotx.Channel;
+import org.pircbotx.PircBotX;
+import org.pircbotx.User;
+import org.pircbotx.hooks.events.MessageEvent;
+import org.pircbotx.output.OutputChannel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import de.throughput.ircbot.ChannelActivityTracker;
+import de.throughput.ircbot.IrcBotConfig;
+import de.throughput.ircbot.api.Command;
+import de.throughput.ircbot.api.CommandEvent;
+import de.throughput.ircbot.api.ParsedMessage;
+
+class SloganCommandHandlerTest {
+
+    private static final String CHANNEL = "#test";
+    private static final String DELETE_SLOGAN = "DELETE FROM slogan WHERE channel = ? AND slogan = ? RETURNING id";
+
+    private JdbcTemplate jdbc;
+    private OutputChannel output;
+    private SloganCommandHandler handler;
+
+    @BeforeEach
+    void setup() throws Exception {
+        jdbc = mock(JdbcTemplate.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString(1)).thenReturn(CHANNEL);
+        when(rs.getInt(2)).thenReturn(1, 2, 3);
+        when(rs.getString(3)).thenReturn("first", "second", "third");
+        doAnswer(invocation -> {
+            RowCallbackHandler rowHandler = invocation.getArgument(1);
+            for (int i = 0; i < 3; i++) {
+                rowHandler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(eq("SELECT channel, id, slogan FROM slogan"), any(RowCallbackHandler.class));
+        output = mock(OutputChannel.class);
+        handler = new SloganCommandHandler(mock(IrcBotConfig.class), jdbc, mock(ChannelActivityTracker.class),
+                mock(PircBotX.class));
+    }
+
+    @Test
+    void removedSloganIsNoLongerDrawn() {
+        when(jdbc.queryForList(DELETE_SLOGAN, Integer.class, CHANNEL, "second")).thenReturn(List.of(2));
+
+        MessageEvent remove = command("rmslogan", "second");
+        verify(remove).respond("Forget those lies!");
+
+        for (int i = 0; i < 6; i++) {
+            command("slogan", null);
+        }
+        verify(output, times(3)).message("first");
+        verify(output, times(3)).message("third");
+        verify(output, never()).message("second");
+    }
+
+    @Test
+    void unknownSloganIsNotRemoved() {
+        when(jdbc.queryForList(DELETE_SLOGAN, Integer.class, CHANNEL, "fourth")).thenReturn(List.of());
+
+        MessageEvent remove = command("rmslogan", "fourth");
+        verify(remove).respond("Slogan not found.");
+
+        for (int i = 0; i < 3; i++) {
+            command("slogan", null);
+        }
+        verify(output).message("first");
+        verify(output).message("second");
+        verify(output).message("third");
+    }
+
+    private MessageEvent command(String name, String argLine) {
+        Channel channel = mock(Channel.class);
+        when(channel.getName()).thenReturn(CHANNEL);
+        when(channel.send()).thenReturn(output);
+        User user = mock(User.class);
+        when(user.getNick()).thenReturn("alice");
+        MessageEvent event = mock(MessageEvent.class);
+        when(event.getChannel()).thenReturn(channel);
+        when(event.getUser()).thenReturn(user);
+        when(event.getMessage()).thenReturn(argLine == null ? "!" + name : "!" + name + " " + argLine);
+        Command command = handler.getCommands().stream()
+                .filter(c -> c.getCommand().equals(name))
+                .findFirst()
+                .orElseThrow();
+        handler.onCommand(new CommandEvent(event, command, "!", Optional.ofNullable(argLine), ParsedMessage.of(event)));
+        return event;
+    }
+}
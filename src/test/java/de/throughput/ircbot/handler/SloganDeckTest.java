@@ -0,0 +1,86 @@
+package de.throughput.ircbot.handler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SloganDeckTest {
+
+    private static final String CHANNEL = "#test";
+    private static final int SLOGANS = 10;
+
+    private SloganDeck deck;
+
+    @BeforeEach
+    void setup() {
+        deck = new SloganDeck();
+        for (int id = 1; id <= SLOGANS; id++) {
+            deck.add(CHANNEL, id, "slogan " + id);
+        }
+    }
+
+    @Test
+    void noRepeatsWithinDeck() {
+        assertEquals(SLOGANS, new HashSet<>(drawIds(SLOGANS)).size());
+    }
+
+    @Test
+    void reshufflesWhenExhausted() {
+        for (int round = 0; round < 5; round++) {
+            assertEquals(SLOGANS, new HashSet<>(drawIds(SLOGANS)).size());
+        }
+    }
+
+    @Test
+    void lastSloganOfRoundIsNotRepeatedRightAway() {
+        for (int round = 0; round < 20; round++) {
+            List<Integer> ids = drawIds(SLOGANS + 1);
+            assertNotEquals(ids.get(SLOGANS - 1), ids.get(SLOGANS));
+            // finish the round started by the extra draw
+            drawIds(SLOGANS - 1);
+        }
+    }
+
+    @Test
+    void removedSloganIsNotDrawn() {
+        drawIds(3);
+        deck.remove(CHANNEL, 5);
+
+        Set<Integer> drawn = new HashSet<>(drawIds(2 * (SLOGANS - 1)));
+        assertFalse(drawn.contains(5));
+        assertEquals(SLOGANS - 1, drawn.size());
+    }
+
+    @Test
+    void addedSloganIsDrawnInCurrentRound() {
+        drawIds(3);
+        deck.add(CHANNEL, 11, "slogan 11");
+
+        assertTrue(drawIds(SLOGANS - 3 + 1).contains(11));
+    }
+
+    @Test
+    void channelsHaveSeparateDecks() {
+        assertTrue(deck.draw("#other").isEmpty());
+
+        deck.add("#other", 42, "other slogan");
+        assertEquals(new SloganDeck.Slogan(42, "other slogan"), deck.draw("#other").orElseThrow());
+        assertEquals(SLOGANS, new HashSet<>(drawIds(SLOGANS)).size());
+    }
+
+    private List<Integer> drawIds(int count) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(deck.draw(CHANNEL).orElseThrow().id());
+        }
+        return ids;
+    }
+}
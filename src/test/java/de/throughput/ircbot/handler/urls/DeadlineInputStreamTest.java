@@ -0,0 +1,89 @@
+package de.throughput.ircbot.handler.urls;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+class DeadlineInputStreamTest {
+
+    @Test
+    void stalledBodyEndsAtDeadline() {
+        StalledBody stalled = new StalledBody(new byte[] {1, 2, 3});
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            try (DeadlineInputStream body = new DeadlineInputStream(stalled, 100)) {
+                assertArrayEquals(new byte[] {1, 2, 3}, body.readNBytes(1000));
+                assertTrue(body.isExpired());
+                assertEquals(-1, body.read());
+            }
+        });
+    }
+
+    @Test
+    void bodyReadInTimeIsUnaffected() throws IOException {
+        try (DeadlineInputStream body = new DeadlineInputStream(new ByteArrayInputStream(new byte[] {1, 2}), 60_000)) {
+            assertArrayEquals(new byte[] {1, 2}, body.readAllBytes());
+            assertFalse(body.isExpired());
+        }
+    }
+
+    @Test
+    void failuresBeforeDeadlineArePassedOn() {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        DeadlineInputStream body = new DeadlineInputStream(failing, 60_000);
+
+        assertThrows(IOException.class, body::read);
+    }
+
+    /**
+     * Sends some bytes, then blocks until closed, like a body whose server stopped sending.
+     */
+    private static class StalledBody extends InputStream {
+
+        private final ByteArrayInputStream start;
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        StalledBody(byte[] start) {
+            this.start = new ByteArrayInputStream(start);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (start.available() > 0) {
+                return start.read(b, off, len);
+            }
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("closed");
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
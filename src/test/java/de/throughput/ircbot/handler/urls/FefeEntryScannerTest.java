@@ -0,0 +1,73 @@
+package de.throughput.ircbot.handler.urls;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class FefeEntryScannerTest {
+
+    private static final String PAGE = """
+            <!doctype html>
+            <html><head><title>Fefes Blog</title></head><body>
+            <h2><a href="https://blog.fefe.de/">Fefes Blog</a></h2>
+            <b>Wer schöne Verschwörungslinks für mich hat: Immer her damit!</b>
+            <h3>Wed Apr 15 2020</h3>
+            <ul>
+            <li><a href="?ts=a1b2c3d4">[l]</a>   Gute Nachrichten: <a href="https://www.example.com/a.html?x=1">Die Tests
+            funktionieren</a>! Oder doch nicht? Mal sehen.
+            </ul>
+            """;
+
+    @Test
+    void findsFirstSentenceAcrossChunks() {
+        for (int chunkSize : new int[] {1, 7, 8192}) {
+            FefeEntryScanner scanner = scan(PAGE, chunkSize, 4096);
+
+            assertTrue(scanner.isDone());
+            assertEquals(Optional.of("Gute Nachrichten: <a href=\"https://www.example.com/a.html?x=1\">Die Tests\nfunktionieren</a>!"),
+                    scanner.getSentence());
+        }
+    }
+
+    @Test
+    void skipsOtherLinks() {
+        String page = "<li><a href=\"\">[l]</a> no. <li><a href=\"x\">[x]</a> no. <li><a href=\"?ts=1\">[l]</a>yes.";
+        FefeEntryScanner scanner = scan(page, 3, 4096);
+
+        assertEquals(Optional.of("yes."), scanner.getSentence());
+    }
+
+    @Test
+    void cutsOffLongSentences() {
+        String page = "<li><a href=\"?ts=1\">[l]</a> " + "x".repeat(100);
+        FefeEntryScanner scanner = scan(page, 8192, 10);
+
+        assertEquals(Optional.of("xxxxxxxxxx"), scanner.getSentence());
+    }
+
+    @Test
+    void stopsAtMaximumLength() {
+        String page = "<p>".repeat(100) + "<li><a href=\"?ts=1\">[l]</a> late.";
+        FefeEntryScanner scanner = new FefeEntryScanner(100, 4096);
+        char[] chars = page.toCharArray();
+        scanner.feed(chars, 0, chars.length);
+
+        assertTrue(scanner.isFull());
+        assertFalse(scanner.isDone());
+        assertEquals(Optional.empty(), scanner.getSentence());
+    }
+
+    private static FefeEntryScanner scan(String page, int chunkSize, int maxSentenceLength) {
+        FefeEntryScanner scanner = new FefeEntryScanner(524288, maxSentenceLength);
+        char[] chars = page.toCharArray();
+        for (int offset = 0; offset < chars.length; offset += chunkSize) {
+            if (scanner.feed(chars, offset, Math.min(chunkSize, chars.length - offset))) {
+                break;
+            }
+        }
+        return scanner;
+    }
+}
@@ -5,7 +5,10 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.junit.jupiter.api.Test;
 
+import de.throughput.ircbot.HttpService;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 
 class FefeUrlProcessorTest {
 
@@ -18,7 +21,7 @@ class FefeUrlProcessorTest {
 
     @Test
     void testUrlPatterns() {
-        FefeUrlProcessor processor = new FefeUrlProcessor();
+        FefeUrlProcessor processor = new FefeUrlProcessor(mock(HttpService.class));
         Pattern pattern = processor.getUrlPatterns()
                 .iterator()
                 .next();
@@ -32,7 +35,7 @@ class FefeUrlProcessorTest {
 
     @Test
     void testUrlPatternsNoMatch() {
-        FefeUrlProcessor processor = new FefeUrlProcessor();
+        FefeUrlProcessor processor = new FefeUrlProcessor(mock(HttpService.class));
 
         Pattern pattern = processor.getUrlPatterns()
                 .iterator()
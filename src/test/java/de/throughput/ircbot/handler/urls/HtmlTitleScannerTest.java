@@ -0,0 +1,79 @@
+package de.throughput.ircbot.handler.urls;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class HtmlTitleScannerTest {
+
+    @Test
+    void findsTitleAcrossChunks() {
+        String html = "<!DOCTYPE html><html><head><!-- <title>no</title> -->"
+                + "<script>var x = '<title>bad</title>';</script>"
+                + "<meta charset=\"iso-8859-1\"><TITLE lang=de>\n Grüße &amp;  mehr\n</title></head><body>";
+        for (int chunkSize : new int[] {1, 7, 8192}) {
+            HtmlTitleScanner scanner = scan(html, StandardCharsets.ISO_8859_1, null, chunkSize);
+
+            assertTrue(scanner.isDone());
+            assertEquals(Optional.of("Grüße & mehr"), scanner.getTitle());
+        }
+    }
+
+    @Test
+    void findsTitleAfterLessThanSign() {
+        String html = "<html><head>a < b, I <3 you<title>Real title</title></head><body>";
+        for (int chunkSize : new int[] {1, 7, 8192}) {
+            HtmlTitleScanner scanner = scan(html, StandardCharsets.UTF_8, null, chunkSize);
+
+            assertTrue(scanner.isDone());
+            assertEquals(Optional.of("Real title"), scanner.getTitle());
+        }
+    }
+
+    @Test
+    void headerCharsetWinsOverMeta() {
+        String html = "<head><meta charset=\"iso-8859-1\"><title>Grüße</title>";
+        HtmlTitleScanner scanner = scan(html, StandardCharsets.UTF_8, StandardCharsets.UTF_8, 5);
+
+        assertEquals(Optional.of("Grüße"), scanner.getTitle());
+    }
+
+    @Test
+    void fallsBackToOgTitle() {
+        String html = "<html><head><meta property=\"og:title\" content=\"Über &quot;x&quot;\"><title></title></head><body>";
+        HtmlTitleScanner scanner = scan(html, StandardCharsets.UTF_8, null, 5);
+
+        assertTrue(scanner.isDone());
+        assertEquals(Optional.of("Über \"x\""), scanner.getTitle());
+    }
+
+    @Test
+    void isNotDoneWithoutEndOfTitle() {
+        HtmlTitleScanner scanner = scan("<html><head><title>never ends", StandardCharsets.UTF_8, null, 4);
+
+        assertFalse(scanner.isDone());
+        assertEquals(Optional.empty(), scanner.getTitle());
+    }
+
+    @Test
+    void readsCharsetParameter() {
+        assertEquals("UTF-8", HtmlTitleScanner.charsetParameter("text/html; charset=\"UTF-8\"; x=y"));
+        assertEquals(null, HtmlTitleScanner.charsetParameter("text/html"));
+    }
+
+    private static HtmlTitleScanner scan(String html, Charset encoding, Charset headerCharset, int chunkSize) {
+        byte[] bytes = html.getBytes(encoding);
+        HtmlTitleScanner scanner = new HtmlTitleScanner(headerCharset, 1 << 19);
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            if (scanner.feed(bytes, i, Math.min(chunkSize, bytes.length - i))) {
+                break;
+            }
+        }
+        return scanner;
+    }
+}
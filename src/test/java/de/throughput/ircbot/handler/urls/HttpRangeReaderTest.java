@@ -0,0 +1,90 @@
+package de.throughput.ircbot.handler.urls;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.throughput.ircbot.HttpService;
+
+class HttpRangeReaderTest {
+
+    private static final int LENGTH = 10 * HttpRangeReader.BLOCK_SIZE + 123;
+
+    private final byte[] file = new byte[LENGTH];
+    private HttpService httpService;
+    private HttpRequest request;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        for (int i = 0; i < LENGTH; i++) {
+            file[i] = (byte) (i * 31);
+        }
+        request = HttpRequest.newBuilder(URI.create("https://example.com/doc.pdf")).build();
+        httpService = mock(HttpService.class);
+        when(httpService.sendAsync(any(), any())).thenAnswer(invocation -> {
+            HttpRequest rangeRequest = invocation.getArgument(0);
+            String[] range = rangeRequest.headers().firstValue("Range").orElseThrow().substring(6).split("-");
+            int start = Integer.parseInt(range[0]);
+            int end = Integer.parseInt(range[1]);
+            HttpResponse<InputStream> response = mock(HttpResponse.class);
+            when(response.statusCode()).thenReturn(206);
+            when(response.headers()).thenReturn(HttpHeaders.of(
+                    Map.of("Content-Range", List.of("bytes " + start + "-" + end + "/" + LENGTH)), (name, value) -> true));
+            when(response.body()).thenReturn(new ByteArrayInputStream(file, start, end - start + 1));
+            return CompletableFuture.completedFuture(response);
+        });
+    }
+
+    @Test
+    void readsAcrossBlocks() throws IOException {
+        HttpRangeReader reader = reader(LENGTH);
+        byte[] tail = new byte[1000];
+
+        reader.seek(LENGTH - 1000);
+        assertEquals(1000, reader.read(tail, 0, 1000));
+        assertArrayEquals(Arrays.copyOfRange(file, LENGTH - 1000, LENGTH), tail);
+        assertEquals(-1, reader.read());
+
+        byte[] middle = new byte[HttpRangeReader.BLOCK_SIZE + 10];
+        reader.seek(HttpRangeReader.BLOCK_SIZE - 5);
+        assertEquals(middle.length, reader.read(middle, 0, middle.length));
+        assertArrayEquals(Arrays.copyOfRange(file, HttpRangeReader.BLOCK_SIZE - 5,
+                HttpRangeReader.BLOCK_SIZE - 5 + middle.length), middle);
+
+        // the head, the last two blocks and the second block
+        assertEquals(HttpRangeReader.BLOCK_SIZE * 4L + 123, reader.getFetched());
+    }
+
+    @Test
+    void stopsAtByteLimit() throws IOException {
+        HttpRangeReader reader = reader(2L * HttpRangeReader.BLOCK_SIZE);
+
+        reader.seek(HttpRangeReader.BLOCK_SIZE);
+        reader.read();
+        reader.seek(LENGTH - 1);
+        assertThrows(IOException.class, reader::read);
+    }
+
+    private HttpRangeReader reader(long maxBytes) {
+        byte[] head = Arrays.copyOf(file, HttpRangeReader.BLOCK_SIZE);
+        return new HttpRangeReader(httpService, request, LENGTH, head, maxBytes, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,75 @@
+package de.throughput.ircbot.handler.urls;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.apache.commons.imaging.ImageFormats;
+import org.junit.jupiter.api.Test;
+
+class ImageInfoTest {
+
+    private static final int MAX_BYTES = 64 * 1024;
+
+    @Test
+    void readsSmallImage() throws IOException {
+        ByteArrayInputStream body = new ByteArrayInputStream(image("png"));
+
+        assertEquals(new ImageInfo(ImageFormats.PNG.getName(), 40, 30), ImageInfo.read(body));
+    }
+
+    @Test
+    void readsJpegWithLargeMetadata() throws IOException {
+        // the frame header is beyond the first read
+        byte[] jpeg = withComments(image("jpg"), 20000);
+        ByteArrayInputStream body = new ByteArrayInputStream(jpeg);
+
+        assertEquals(new ImageInfo(ImageFormats.JPEG.getName(), 40, 30), ImageInfo.read(body));
+        assertEquals(0, body.available());
+    }
+
+    @Test
+    void readsNoMoreThanLimit() throws IOException {
+        byte[] jpeg = withComments(image("jpg"), 30000, 30000, 30000);
+        ByteArrayInputStream body = new ByteArrayInputStream(jpeg);
+
+        assertEquals(new ImageInfo(ImageFormats.JPEG.getName(), 0, 0), ImageInfo.read(body));
+        assertEquals(MAX_BYTES, jpeg.length - body.available());
+    }
+
+    @Test
+    void unknownImageIsReadUpToLimit() throws IOException {
+        byte[] garbage = new byte[MAX_BYTES * 2];
+        ByteArrayInputStream body = new ByteArrayInputStream(garbage);
+
+        assertEquals(new ImageInfo(null, 0, 0), ImageInfo.read(body));
+        assertEquals(MAX_BYTES, garbage.length - body.available());
+    }
+
+    private static byte[] image(String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Inserts comment segments of the given sizes after the start of image marker.
+     */
+    private static byte[] withComments(byte[] jpeg, int... commentSizes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        for (int size : commentSizes) {
+            int length = size + 2;
+            out.write(0xFF);
+            out.write(0xFE);
+            out.write(length >> 8);
+            out.write(length & 0xFF);
+            out.writeBytes(new byte[size]);
+        }
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+}
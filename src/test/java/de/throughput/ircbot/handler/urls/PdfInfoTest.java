@@ -0,0 +1,80 @@
+package de.throughput.ircbot.handler.urls;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PdfInfoTest {
+
+    private static final int MAX_BYTES = 1024 * 1024;
+
+    private HttpResponse<InputStream> response;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        response = mock(HttpResponse.class);
+        when(response.uri()).thenReturn(URI.create("https://example.com/doc.pdf"));
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+    }
+
+    @Test
+    void readsSmallDocument() throws IOException {
+        byte[] pdf = pdf("Annual Report", 3);
+
+        assertEquals(Optional.of(new PdfInfo("Annual Report", 3)),
+                PdfInfo.read(null, response, new ByteArrayInputStream(pdf), OptionalLong.of(pdf.length)));
+        assertEquals(Optional.of(new PdfInfo(null, 1)),
+                PdfInfo.read(null, response, new ByteArrayInputStream(pdf(" ", 1)), OptionalLong.empty()));
+    }
+
+    @Test
+    void largeDocumentWithoutRangesIsNotRead() {
+        ByteArrayInputStream body = new ByteArrayInputStream(new byte[MAX_BYTES]);
+
+        assertEquals(Optional.empty(), PdfInfo.read(null, response, body, OptionalLong.of(2L * MAX_BYTES)));
+        assertEquals(MAX_BYTES, body.available());
+    }
+
+    @Test
+    void documentOfUnknownLengthStopsAtLimit() {
+        ByteArrayInputStream body = new ByteArrayInputStream(new byte[2 * MAX_BYTES]);
+
+        assertEquals(Optional.empty(), PdfInfo.read(null, response, body, OptionalLong.empty()));
+        assertEquals(MAX_BYTES - 1, body.available());
+    }
+
+    @Test
+    void brokenDocumentHasNoInfo() {
+        ByteArrayInputStream body = new ByteArrayInputStream("%PDF-1.7 not really".getBytes());
+
+        assertEquals(Optional.empty(), PdfInfo.read(null, response, body, OptionalLong.empty()));
+    }
+
+    private static byte[] pdf(String title, int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                document.addPage(new PDPage());
+            }
+            document.getDocumentInformation().setTitle(title);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
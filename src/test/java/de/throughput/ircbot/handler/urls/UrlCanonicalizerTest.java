@@ -0,0 +1,37 @@
+package de.throughput.ircbot.handler.urls;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class UrlCanonicalizerTest {
+
+    @Test
+    void normalizesHostAndPort() {
+        assertEquals("https://www.heise.de/newsticker/",
+                UrlCanonicalizer.canonicalize("HTTPS://WWW.Heise.DE:443/newsticker/#comments"));
+        assertEquals("http://example.com:8080/", UrlCanonicalizer.canonicalize("http://example.com:8080"));
+        assertEquals("http://example.com/", UrlCanonicalizer.canonicalize("http://example.com:80/"));
+    }
+
+    @Test
+    void stripsTrackingParameters() {
+        assertEquals("https://example.com/a?id=1&page=2",
+                UrlCanonicalizer.canonicalize("https://example.com/a?utm_source=x&id=1&fbclid=abc&page=2&UTM_Medium=y"));
+        assertEquals("https://example.com/a", UrlCanonicalizer.canonicalize("https://example.com/a?utm_source=x"));
+    }
+
+    @Test
+    void normalizesYoutubeIds() {
+        String canonical = "https://www.youtube.com/watch?v=0zM3nApSvMg";
+        assertEquals(canonical, UrlCanonicalizer.canonicalize("http://youtu.be/0zM3nApSvMg?si=abc"));
+        assertEquals(canonical, UrlCanonicalizer.canonicalize("https://youtube.com/shorts/0zM3nApSvMg"));
+        assertEquals(canonical, UrlCanonicalizer.canonicalize("http://www.youtube.com/embed/0zM3nApSvMg?rel=0"));
+        assertEquals(canonical, UrlCanonicalizer.canonicalize("https://m.youtube.com/watch?feature=share&v=0zM3nApSvMg#t=10"));
+    }
+
+    @Test
+    void keepsUnparseableUrls() {
+        assertEquals("https://exa mple.com/", UrlCanonicalizer.canonicalize("https://exa mple.com/"));
+    }
+}
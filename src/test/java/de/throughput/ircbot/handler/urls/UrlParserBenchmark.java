@@ -0,0 +1,85 @@
+package de.throughput.ircbot.handler.urls;
+
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of {@link UrlParser#findUrls(String)}, compared with the former implementation using a regular
+ * expression and {@link URL#toURI()} to validate each match.
+ * <p>
+ * Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlParserBenchmark {
+
+    private static final Pattern URL_PATTERN = Pattern.compile("((?:ht|f)tps?://\\S+)");
+
+    @Param({"noUrl", "oneUrl", "manyUrls", "invalidUrls"})
+    private String shape;
+
+    private String message;
+
+    @Setup
+    public void setup() {
+        message = switch (shape) {
+            case "noUrl" -> "did anyone read the article about the new java release? looks good to me";
+            case "oneUrl" -> "did anyone read https://www.heise.de/news/Java-25-erschienen-10000000.html?wt_mc=rss yet?";
+            case "manyUrls" -> "compare https://example.com/a, https://example.org/b?c=d and "
+                    + "(https://en.wikipedia.org/wiki/Java_(programming_language)) with ftp://mirrors.kernel.org/pub/";
+            case "invalidUrls" -> "http://a.b/%zz http://a.b:x/ http:// https://a.b/<b> ".repeat(4);
+            default -> throw new IllegalArgumentException(shape);
+        };
+    }
+
+    @Benchmark
+    public List<UrlSpan> scanner() {
+        return UrlParser.findUrls(message);
+    }
+
+    @Benchmark
+    public List<String> regex() {
+        List<String> urls = new ArrayList<>();
+        Matcher matcher = URL_PATTERN.matcher(message);
+        while (matcher.find()) {
+            try {
+                new URL(matcher.group(1)).toURI();
+                urls.add(matcher.group(1));
+            } catch (MalformedURLException | URISyntaxException e) {
+                // not a URL
+            }
+        }
+        return urls;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UrlParserBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
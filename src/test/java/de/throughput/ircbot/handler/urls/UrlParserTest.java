@@ -45,6 +45,32 @@ class UrlParserTest {
         assertEquals(URLS, urls);
     }
 
+    @Test
+    void stripsTrailingPunctuationAndBrackets() {
+        assertEquals(List.of("https://example.com"), UrlParser.streamUrls("see https://example.com.").toList());
+        assertEquals(List.of("https://example.com/a?b=c"), UrlParser.streamUrls("<https://example.com/a?b=c>").toList());
+        assertEquals(List.of("https://x.org/a"), UrlParser.streamUrls("(look: https://x.org/a), ok?").toList());
+        assertEquals(List.of("https://en.wikipedia.org/wiki/Java_(programming_language)"),
+                UrlParser.streamUrls("(https://en.wikipedia.org/wiki/Java_(programming_language))").toList());
+    }
+
+    @Test
+    void skipsInvalidUrls() {
+        assertEquals(List.of("https://ok.de"),
+                UrlParser.streamUrls("http:// http://a.b:x/ http://a.b/%zz ftps://a.b https://ok.de").toList());
+    }
+
+    @Test
+    void findsSpans() {
+        String text = "a https://example.com/b, c";
+        UrlSpan span = UrlParser.findUrls(text).get(0);
+
+        assertEquals(2, span.start());
+        assertEquals(23, span.end());
+        assertEquals("https://example.com/b", span.url());
+        assertEquals("https://example.com/b", span.canonical());
+    }
+
     private static String text() {
         StringBuilder sb = new StringBuilder();
         Iterator<String> textIter = TEXT.iterator();
@@ -0,0 +1,82 @@
+package de.throughput.ircbot.handler.urls;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class UrlPreviewCacheTest {
+
+    private static final String URL = "https://example.com/";
+
+    private final UrlPreviewCache cache = new UrlPreviewCache();
+
+    @Test
+    void loadsOnceWhileLoading() {
+        CompletableFuture<List<UrlPreview>> loading = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<List<UrlPreview>> first = cache.get(URL, url -> {
+            loads.incrementAndGet();
+            return loading;
+        });
+        CompletableFuture<List<UrlPreview>> second = cache.get(URL, url -> {
+            loads.incrementAndGet();
+            return loading;
+        });
+        loading.complete(List.of(UrlPreview.message("^ 'Example'")));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(List.of(UrlPreview.message("^ 'Example'")), second.join());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(URL, url -> {
+            loads.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException());
+        });
+        cache.get(URL, url -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(List.of());
+        });
+        cache.get(URL, url -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(List.of());
+        });
+
+        // the empty result is cached negatively
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void stalledLoadsTimeOut() {
+        UrlPreviewCache timingOut = new UrlPreviewCache(50);
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<List<UrlPreview>> stalled = timingOut.get(URL, url -> {
+            loads.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        CompletionException e = assertThrows(CompletionException.class, stalled::join);
+        assertTrue(e.getCause() instanceof TimeoutException);
+
+        timingOut.get(URL, url -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(List.of());
+        });
+        assertEquals(2, loads.get());
+    }
+}
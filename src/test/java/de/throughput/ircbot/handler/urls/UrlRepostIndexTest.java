@@ -0,0 +1,96 @@
+package de.throughput.ircbot.handler.urls;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+class UrlRepostIndexTest {
+
+    private JdbcTemplate jdbc;
+    private UrlRepostIndex index;
+
+    @BeforeEach
+    void setup() {
+        jdbc = mock(JdbcTemplate.class);
+        index = new UrlRepostIndex(jdbc);
+    }
+
+    @Test
+    void detectsRepostWithoutDatabase() {
+        assertEquals(Optional.empty(), index.post("#java", "alice", "https://example.com/"));
+
+        Optional<UrlPost> repost = index.post("#JAVA", "bob", "https://example.com/");
+
+        assertTrue(repost.isPresent());
+        assertEquals("alice", repost.get().nick());
+        assertEquals(1, index.getRecentHits());
+        verify(jdbc, never()).query(anyString(), any(RowMapper.class), anyLong());
+    }
+
+    @Test
+    void keepsChannelsApart() {
+        index.post("#java", "alice", "https://example.com/");
+
+        assertEquals(Optional.empty(), index.post("#kotlin", "bob", "https://example.com/"));
+        assertEquals(2, index.getFilterMisses());
+    }
+
+    @Test
+    void databaseFailureCountsAsFirstPost() throws Exception {
+        // the URL is in the Bloom filter, but not in memory
+        ResultSet storedHash = mock(ResultSet.class);
+        when(storedHash.getLong(1)).thenReturn(UrlRepostIndex.hash("#java", "https://example.com/"));
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(storedHash);
+            return null;
+        }).when(jdbc).query(startsWith("SELECT url_hash"), any(RowCallbackHandler.class));
+        when(jdbc.query(startsWith("SELECT channel"), any(RowMapper.class), anyLong()))
+                .thenThrow(new DataAccessResourceFailureException("database is down"));
+        index = new UrlRepostIndex(jdbc);
+
+        assertEquals(Optional.empty(), index.post("#java", "bob", "https://example.com/"));
+        assertEquals(1, index.getDatabaseLookups());
+    }
+
+    @Test
+    void hashesChannelAndUrl() {
+        assertNotEquals(UrlRepostIndex.hash("#a", "b"), UrlRepostIndex.hash("#ab", ""));
+        assertEquals(UrlRepostIndex.hash("#a", "b"), UrlRepostIndex.hash("#a", "b"));
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1 << 16, 7);
+        for (int i = 0; i < 5000; i++) {
+            filter.add(UrlRepostIndex.hash("#c", "https://example.com/" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(filter.mightContain(UrlRepostIndex.hash("#c", "https://example.com/" + i)));
+            if (filter.mightContain(UrlRepostIndex.hash("#c", "https://example.org/" + i))) {
+                falsePositives++;
+            }
+        }
+        // about 1% expected at this load
+        assertFalse(falsePositives > 250, "false positives: " + falsePositives);
+    }
+}
@@ -2,12 +2,37 @@ package de.throughput.ircbot.handler.urls;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import com.google.api.services.youtube.YouTube;
+import com.google.api.services.youtube.model.Video;
+import com.google.api.services.youtube.model.VideoListResponse;
+import com.google.api.services.youtube.model.VideoSnippet;
 
 class YoutubeUrlProcessorTest {
 
@@ -25,11 +50,36 @@ class YoutubeUrlProcessorTest {
             "http://www.gootube.com/watch?v=0zM3nApSvMg&feature=feedrec_grec_index",
             "http://heise.de/v/0zM3nApSvMg?fs=1&amp;hl=en_US&amp;rel=0",
             "http://www.notyoutube.com/watch?v=0zM3nApSvMg#t=0m10s",
-            "http://notyoutu.be/0zM3nApSvMg");
+            "http://notyoutu.be/0zM3nApSvMg",
+            "https://youtu.be/",
+            "https://youtu.be/?si=abc",
+            "https://www.youtube.com/watch?v=&feature=share");
+
+    private static final Pattern YOUTUBE_URL = new YoutubeUrlProcessor(null, null, 10000).getUrlPatterns()
+            .iterator()
+            .next();
+
+    private static final String MISSING = "xxxxxxxxxxx";
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final MutableClock clock = new MutableClock();
+    private YouTube youtube;
+    private HtmlTitleUrlProcessor htmlTitleFallback;
+
+    @BeforeEach
+    void setup() throws IOException {
+        youtube = mock(YouTube.class);
+        YouTube.Videos videos = mock(YouTube.Videos.class);
+        when(youtube.videos()).thenReturn(videos);
+        when(videos.list("snippet")).thenAnswer(invocation -> videoListRequest());
+        htmlTitleFallback = mock(HtmlTitleUrlProcessor.class);
+        when(htmlTitleFallback.process(anyString()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(UrlPreview.titled("html title", "html title"))));
+    }
 
     @Test
     void testUrlPatternsMatch() {
-        YoutubeUrlProcessor processor = new YoutubeUrlProcessor(null, null);
+        YoutubeUrlProcessor processor = new YoutubeUrlProcessor(null, null, 10000);
 
         Pattern pattern = processor.getUrlPatterns()
                 .iterator()
@@ -43,7 +93,7 @@ class YoutubeUrlProcessorTest {
 
     @Test
     void testUrlPatternsNoMatch() {
-        YoutubeUrlProcessor processor = new YoutubeUrlProcessor(null, null);
+        YoutubeUrlProcessor processor = new YoutubeUrlProcessor(null, null, 10000);
 
         Pattern pattern = processor.getUrlPatterns()
                 .iterator()
@@ -54,4 +104,144 @@ class YoutubeUrlProcessorTest {
         }
     }
 
+    @Test
+    void idsWithinWindowAreLookedUpTogether() throws Exception {
+        YoutubeUrlProcessor processor = processor(10000);
+
+        CompletableFuture<Optional<UrlPreview>> first = processor.process(matcher("https://youtu.be/aaaaaaaaaaa"));
+        CompletableFuture<Optional<UrlPreview>> second = processor.process(matcher("https://youtu.be/bbbbbbbbbbb"));
+        CompletableFuture<Optional<UrlPreview>> again = processor.process(matcher("https://youtube.com/watch?v=aaaaaaaaaaa"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS).orElseThrow().title(), is("title aaaaaaaaaaa"));
+        assertThat(second.get(5, TimeUnit.SECONDS).orElseThrow().message(), is("^ YouTube: 'title bbbbbbbbbbb'"));
+        assertThat(again.get(5, TimeUnit.SECONDS).orElseThrow().title(), is("title aaaaaaaaaaa"));
+        assertThat(requests, contains("aaaaaaaaaaa,bbbbbbbbbbb"));
+        assertThat(processor.getQuotaUsed(), is(1));
+    }
+
+    @Test
+    void unknownVideoHasNoPreview() throws Exception {
+        YoutubeUrlProcessor processor = processor(10000);
+
+        assertThat(processor.process(matcher("https://youtu.be/" + MISSING)).get(5, TimeUnit.SECONDS).isPresent(), is(false));
+    }
+
+    @Test
+    void batchesAreSplitAtFiftyIds() throws Exception {
+        YoutubeUrlProcessor processor = processor(10000);
+
+        List<CompletableFuture<Optional<UrlPreview>>> previews = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            previews.add(processor.process(matcher("https://youtu.be/video%06d".formatted(i))));
+        }
+        CompletableFuture.allOf(previews.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(requests.stream().map(ids -> ids.split(",").length).sorted().toList(), contains(20, 50, 50));
+        assertThat(processor.getQuotaUsed(), is(3));
+    }
+
+    @Test
+    void quotaIsResetAtPacificMidnight() throws Exception {
+        clock.set(ZonedDateTime.of(2026, 3, 1, 23, 59, 0, 0, ZoneId.of("America/Los_Angeles")).toInstant());
+        YoutubeUrlProcessor processor = processor(10000);
+        processor.process(matcher("https://youtu.be/aaaaaaaaaaa")).get(5, TimeUnit.SECONDS);
+        assertThat(processor.getQuotaUsed(), is(1));
+
+        clock.set(ZonedDateTime.of(2026, 3, 2, 0, 1, 0, 0, ZoneId.of("America/Los_Angeles")).toInstant());
+        assertThat(processor.getQuotaUsed(), is(0));
+    }
+
+    @Test
+    void quotaIsKeptAtUtcMidnight() throws Exception {
+        clock.set(ZonedDateTime.of(2026, 3, 1, 23, 59, 0, 0, ZoneOffset.UTC).toInstant());
+        YoutubeUrlProcessor processor = processor(10000);
+        processor.process(matcher("https://youtu.be/aaaaaaaaaaa")).get(5, TimeUnit.SECONDS);
+
+        clock.set(ZonedDateTime.of(2026, 3, 2, 0, 1, 0, 0, ZoneOffset.UTC).toInstant());
+        assertThat(processor.getQuotaUsed(), is(1));
+    }
+
+    @Test
+    void htmlTitleIsUsedWhenQuotaIsNearlyUsedUp() throws Exception {
+        // 5% of 20 units are kept in reserve
+        YoutubeUrlProcessor processor = processor(20);
+        for (int request = 0; request < 18; request++) {
+            useQuota(processor, request);
+        }
+        processor.process(matcher("https://youtu.be/aaaaaaaaaaa")).get(5, TimeUnit.SECONDS);
+        verify(htmlTitleFallback, never()).process(anyString());
+        assertThat(processor.getQuotaUsed(), is(19));
+
+        String url = "https://youtu.be/bbbbbbbbbbb";
+        Optional<UrlPreview> preview = processor.process(matcher(url)).get(5, TimeUnit.SECONDS);
+
+        assertThat(preview.orElseThrow().message(), is("html title"));
+        verify(htmlTitleFallback).process(url);
+        assertThat(processor.getQuotaUsed(), is(19));
+    }
+
+    /**
+     * Uses one unit of quota right away by filling a batch.
+     */
+    private static void useQuota(YoutubeUrlProcessor processor, int request) throws Exception {
+        List<CompletableFuture<Optional<UrlPreview>>> previews = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            previews.add(processor.process(matcher("https://youtu.be/r%03dv%03d".formatted(request, i))));
+        }
+        CompletableFuture.allOf(previews.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+    }
+
+    private YoutubeUrlProcessor processor(int dailyQuota) {
+        return new YoutubeUrlProcessor(youtube, htmlTitleFallback, dailyQuota, clock);
+    }
+
+    private static Matcher matcher(String url) {
+        Matcher matcher = YOUTUBE_URL.matcher(url);
+        assertThat(matcher.matches(), is(true));
+        return matcher;
+    }
+
+    /**
+     * Answers with a video for every requested id, except {@link #MISSING}.
+     */
+    private YouTube.Videos.List videoListRequest() throws IOException {
+        YouTube.Videos.List request = mock(YouTube.Videos.List.class);
+        AtomicReference<String> ids = new AtomicReference<>();
+        when(request.setId(anyString())).thenAnswer(invocation -> {
+            ids.set(invocation.getArgument(0));
+            return request;
+        });
+        when(request.execute()).thenAnswer(invocation -> {
+            requests.add(ids.get());
+            return new VideoListResponse().setItems(Arrays.stream(ids.get().split(","))
+                    .filter(id -> !id.equals(MISSING))
+                    .map(id -> new Video().setId(id).setSnippet(new VideoSnippet().setTitle("title " + id)))
+                    .toList());
+        });
+        return request;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now = Instant.now();
+
+        void set(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return Clock.fixed(now, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
 }